@@ -0,0 +1,68 @@
+package trianglegrid.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import trianglegrid.coordinates.FractionalCoordinate;
+import trianglegrid.coordinates.PackedCoordinate;
+import trianglegrid.coordinates.TriangleCoordinate;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** TriangleCoordinate and FractionalCoordinate operations */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CoordinateBenchmark {
+    private static final int SAMPLES = 1024;
+
+    private final TriangleCoordinate[] coordinates = new TriangleCoordinate[SAMPLES];
+    private final FractionalCoordinate[] fractionalCoordinates = new FractionalCoordinate[SAMPLES];
+    private final int[] offsetX = new int[SAMPLES];
+    private final int[] offsetY = new int[SAMPLES];
+    private int index;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            offsetX[i] = random.nextInt(2000);
+            offsetY[i] = random.nextInt(2000);
+            coordinates[i] = TriangleCoordinate.fromOffsetCoordinate(offsetX[i], offsetY[i]);
+
+            double a = random.nextDouble(-1000, 1000);
+            double b = random.nextDouble(-1000, 1000);
+            fractionalCoordinates[i] = new FractionalCoordinate(a, b, -a - b);
+        }
+    }
+
+    private int nextIndex() {
+        return index = (index + 1) & (SAMPLES - 1);
+    }
+
+    @Benchmark
+    public TriangleCoordinate getNeighbour() {
+        int i = nextIndex();
+        return coordinates[i].getNeighbour(i % 6);
+    }
+
+    @Benchmark
+    public long packedNeighbour() {
+        int i = nextIndex();
+        return PackedCoordinate.getNeighbour(PackedCoordinate.fromOffsetCoordinate(offsetX[i], offsetY[i]), i % 6);
+    }
+
+    @Benchmark
+    public TriangleCoordinate fromOffsetCoordinate() {
+        int i = nextIndex();
+        return TriangleCoordinate.fromOffsetCoordinate(offsetX[i], offsetY[i]);
+    }
+
+    @Benchmark
+    public TriangleCoordinate roundedTriangleCoordinate() {
+        return fractionalCoordinates[nextIndex()].roundedTriangleCoordinate();
+    }
+}
@@ -0,0 +1,51 @@
+package trianglegrid.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import trianglegrid.coordinates.DirectedCoordinate;
+import trianglegrid.coordinates.FractionalCoordinate;
+import trianglegrid.grid.GridGeometry;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** GridGeometry picking methods */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeometryBenchmark {
+    private static final int SAMPLES = 1024;
+
+    private final GridGeometry geometry = new GridGeometry(80);
+    private final FractionalCoordinate[] coordinates = new FractionalCoordinate[SAMPLES];
+    private int index;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+
+        for (int i = 0; i < SAMPLES; i++)
+            coordinates[i] = geometry.screenToGridCoordinate(random.nextInt(100_000), random.nextInt(100_000));
+    }
+
+    private FractionalCoordinate next() {
+        return coordinates[index = (index + 1) & (SAMPLES - 1)];
+    }
+
+    @Benchmark
+    public double nearestVertexDistance() {
+        return geometry.nearestVertexDistance(next());
+    }
+
+    @Benchmark
+    public DirectedCoordinate nearestEdgeCoordinate() {
+        return geometry.nearestEdgeCoordinate(next());
+    }
+
+    @Benchmark
+    public DirectedCoordinate getFaceCoordinate() {
+        return geometry.getFaceCoordinate(next());
+    }
+}
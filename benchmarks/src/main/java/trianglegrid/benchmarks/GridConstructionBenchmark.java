@@ -0,0 +1,26 @@
+package trianglegrid.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import trianglegrid.grid.EdgeInitializer;
+import trianglegrid.grid.TriangleGrid;
+
+import java.util.concurrent.TimeUnit;
+
+/** TriangleGrid construction at several sizes */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class GridConstructionBenchmark {
+    @Param({"100", "1000", "2000"})
+    public int size;
+
+    private final EdgeInitializer edgeInitializer = EdgeInitializer.seeded(42);
+
+    @Benchmark
+    public TriangleGrid construct() {
+        return new TriangleGrid(size, size, edgeInitializer);
+    }
+}
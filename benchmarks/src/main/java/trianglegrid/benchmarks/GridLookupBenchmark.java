@@ -0,0 +1,55 @@
+package trianglegrid.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import trianglegrid.coordinates.TriangleCoordinate;
+import trianglegrid.grid.Edge;
+import trianglegrid.grid.EdgeInitializer;
+import trianglegrid.grid.TriangleFace;
+import trianglegrid.grid.TriangleGrid;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Random access lookup on a 2000 x 2000 grid */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class GridLookupBenchmark {
+    private static final int SAMPLES = 1 << 16;
+    private static final int GRID_SIZE = 2000;
+
+    private TriangleGrid grid;
+    private final TriangleCoordinate[] coordinates = new TriangleCoordinate[SAMPLES];
+    private final int[] directions = new int[SAMPLES];
+    private int index;
+
+    @Setup
+    public void setup() {
+        grid = new TriangleGrid(GRID_SIZE, GRID_SIZE, EdgeInitializer.seeded(42));
+        SplittableRandom random = new SplittableRandom(42);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            coordinates[i] = TriangleCoordinate.fromOffsetCoordinate(random.nextInt(GRID_SIZE), random.nextInt(GRID_SIZE));
+            directions[i] = random.nextInt(6);
+        }
+    }
+
+    private int nextIndex() {
+        return index = (index + 1) & (SAMPLES - 1);
+    }
+
+    @Benchmark
+    public Edge getEdge() {
+        int i = nextIndex();
+        return grid.getEdge(coordinates[i], directions[i]);
+    }
+
+    @Benchmark
+    public TriangleFace getFace() {
+        int i = nextIndex();
+        return grid.getFace(coordinates[i], directions[i]);
+    }
+}
@@ -0,0 +1,61 @@
+package trianglegrid.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import trianglegrid.BatchedDemoGridRender;
+import trianglegrid.DemoGridRender;
+import trianglegrid.coordinates.FractionalCoordinate;
+import trianglegrid.grid.EdgeInitializer;
+import trianglegrid.grid.TriangleGrid;
+import trianglegrid.ui.TriangleGridRenderer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/** A full frame of TriangleGridRenderer.drawGrid into an offscreen image, drawn element by element or in batches */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RenderBenchmark {
+    private static final int CANVAS_SIZE = 1000;
+
+    @Param({"20", "80"})
+    public int edgeLength;
+
+    @Param({"true", "false"})
+    public boolean coordinateOverlay;
+
+    /** DemoGridRender, or BatchedDemoGridRender drawing the same frame through BatchedGridRenderer */
+    @Param({"element", "batched"})
+    public String rendererType;
+
+    private TriangleGridRenderer renderer;
+    private BufferedImage image;
+    private Graphics2D g2d;
+
+    @Setup
+    public void setup() {
+        TriangleGrid grid = new TriangleGrid(2000, 2000, EdgeInitializer.seeded(42));
+        renderer = rendererType.equals("batched")
+                ? new BatchedDemoGridRender(grid, CANVAS_SIZE, CANVAS_SIZE, edgeLength)
+                : new DemoGridRender(grid, CANVAS_SIZE, CANVAS_SIZE, edgeLength);
+        renderer.setCoordinateOverlay(coordinateOverlay);
+        renderer.setPosition(new FractionalCoordinate(500.5, 1000.25, -1500.75));
+        image = new BufferedImage(CANVAS_SIZE, CANVAS_SIZE, BufferedImage.TYPE_INT_RGB);
+        g2d = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2d.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage drawGrid() {
+        renderer.drawGrid(g2d);
+        return image;
+    }
+}
@@ -0,0 +1,58 @@
+package trianglegrid;
+
+import trianglegrid.grid.*;
+import trianglegrid.ui.BatchStyle;
+import trianglegrid.ui.BatchedGridRenderer;
+
+import java.awt.*;
+
+/** DemoGridRender drawn through BatchedGridRenderer: the same colours, strokes and highlights, drawn in batches by style */
+public class BatchedDemoGridRender extends BatchedGridRenderer {
+    private static final int VERTEX_RADIUS = 15;
+    private static final Stroke EDGE_STROKE = new BasicStroke(3.0f);
+
+    private static final BatchStyle FACE = BatchStyle.filled(Color.lightGray);
+    private static final BatchStyle SELECTED_FACE = BatchStyle.filled(Color.red);
+    private static final BatchStyle HOVERED_FACE = BatchStyle.filled(Color.orange);
+    private static final BatchStyle EDGE = BatchStyle.stroked(Color.black, EDGE_STROKE);
+    private static final BatchStyle SELECTED_EDGE = BatchStyle.stroked(Color.red, EDGE_STROKE);
+    private static final BatchStyle HOVERED_EDGE = BatchStyle.stroked(Color.orange, EDGE_STROKE);
+    private static final BatchStyle VERTEX = new BatchStyle(Color.white, Color.black, EDGE_STROKE);
+    private static final BatchStyle SELECTED_VERTEX = new BatchStyle(Color.red, Color.black, EDGE_STROKE);
+    private static final BatchStyle HOVERED_VERTEX = new BatchStyle(Color.orange, Color.black, EDGE_STROKE);
+
+    public Object selection;
+    /** Element under the mouse */
+    public Object hover;
+
+    public BatchedDemoGridRender(AbstractTriangleGrid grid, int canvasWidth, int canvasHeight, int edgeLength) {
+        super(grid, canvasWidth, canvasHeight, edgeLength, VERTEX_RADIUS);
+    }
+
+    @Override
+    protected BatchStyle faceStyle(int x, int y, boolean pointing) {
+        if (selection instanceof TriangleFace face && face.getX() == x && face.getY() == y && face.getPointing() == pointing)
+            return SELECTED_FACE;
+        if (hover instanceof TriangleFace face && face.getX() == x && face.getY() == y && face.getPointing() == pointing)
+            return HOVERED_FACE;
+        return FACE;
+    }
+
+    @Override
+    protected BatchStyle edgeStyle(int x, int y, int edgeIndex) {
+        if (selection instanceof Edge edge && edge.getX() == x && edge.getY() == y && edge.getIndex() == edgeIndex)
+            return SELECTED_EDGE;
+        if (hover instanceof Edge edge && edge.getX() == x && edge.getY() == y && edge.getIndex() == edgeIndex)
+            return HOVERED_EDGE;
+        return EDGE;
+    }
+
+    @Override
+    protected BatchStyle vertexStyle(int x, int y) {
+        if (selection instanceof Vertex vertex && vertex.getX() == x && vertex.getY() == y)
+            return SELECTED_VERTEX;
+        if (hover instanceof Vertex vertex && vertex.getX() == x && vertex.getY() == y)
+            return HOVERED_VERTEX;
+        return VERTEX;
+    }
+}
@@ -0,0 +1,61 @@
+package trianglegrid;
+
+import trianglegrid.grid.GridLodPyramid;
+import trianglegrid.grid.TriangleGrid;
+import trianglegrid.ui.CameraController;
+import trianglegrid.ui.GridRenderLoop;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+
+/** The demo grid drawn by a GridRenderLoop onto a Canvas: drag to pan, release to fling and use the wheel to zoom.
+ *  The title shows the frame time and dropped frames. */
+public class CanvasGridDemo {
+    private static final int SIZE = 1000;
+    private static final int FRAMES_PER_SECOND = 60;
+
+    private final TriangleGrid grid = new TriangleGrid(2000, 2000);
+    private final DemoGridRender renderer = new DemoGridRender(grid, SIZE, SIZE, 80);
+    private final CameraController camera = new CameraController(renderer);
+    private final Canvas canvas = new Canvas();
+    private final GridRenderLoop renderLoop = new GridRenderLoop(canvas, renderer, camera, FRAMES_PER_SECOND);
+
+    public CanvasGridDemo() {
+        createAndShowGUI();
+    }
+
+    private void createAndShowGUI() {
+        JFrame frame = new JFrame("Triangle Grid Canvas Demo");
+        renderer.setLevelOfDetail(new GridLodPyramid(grid), 8);
+        renderer.setCoordinateOverlay(false);
+        camera.attach(canvas);
+        canvas.setPreferredSize(new Dimension(SIZE, SIZE));
+        frame.add(canvas);
+        frame.pack();
+        frame.setResizable(false);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                try {
+                    renderLoop.stop();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        //frame statistics twice a second
+        new Timer(500, e -> frame.setTitle(String.format("Triangle Grid Canvas Demo - %.1f ms/frame, %d dropped",
+                renderLoop.getLastFrameNanos() / 1e6, renderLoop.getDroppedFrameCount()))).start();
+
+        frame.setVisible(true);
+        renderLoop.start();
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(CanvasGridDemo::new);
+    }
+}
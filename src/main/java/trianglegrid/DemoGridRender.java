@@ -1,6 +1,5 @@
 package trianglegrid;
 
-import trianglegrid.coordinates.TriangleCoordinate;
 import trianglegrid.grid.*;
 import trianglegrid.grid.Vertex;
 import trianglegrid.ui.TriangleGridRenderer;
@@ -8,27 +7,42 @@ import trianglegrid.ui.TriangleGridRenderer;
 import java.awt.*;
 
 public class DemoGridRender extends TriangleGridRenderer {
+    private static final float EDGE_WIDTH = 3.0f;
+    private static final Stroke EDGE_STROKE = new BasicStroke(EDGE_WIDTH);
+    private static final int VERTEX_RADIUS = 15;
+    /** Level of detail shades from light gray for no edges to black for every edge set */
+    private static final Color[] DENSITY_COLORS = new Color[256];
+    static {
+        for (int i = 0; i < 256; i++)
+            DENSITY_COLORS[i] = new Color(192 - i * 192 / 255, 192 - i * 192 / 255, 192 - i * 192 / 255);
+    }
     public Object selection;
+    /** Element under the mouse */
+    public Object hover;
 
-    public DemoGridRender(TriangleGrid grid, int canvasWidth, int canvasHeight, int edgeLength) {
+    public DemoGridRender(AbstractTriangleGrid grid, int canvasWidth, int canvasHeight, int edgeLength) {
         super(grid, canvasWidth, canvasHeight, edgeLength);
     }
 
     @Override
-    protected void drawEdge(Graphics2D g2d, Edge edge, double edgeFinishX, double edgeFinishY) {
-        if (selection == edge)
+    protected void drawEdge(Graphics2D g2d, int x, int y, int edgeIndex, double edgeFinishX, double edgeFinishY) {
+        if (isEdge(selection, x, y, edgeIndex))
             g2d.setColor(Color.red);
+        else if (isEdge(hover, x, y, edgeIndex))
+            g2d.setColor(Color.orange);
         else
             g2d.setColor(Color.black);
 
-        g2d.setStroke(new BasicStroke(3.0f));
+        g2d.setStroke(EDGE_STROKE);
         g2d.drawLine(0, 0, (int) edgeFinishX, (int) edgeFinishY);
     }
 
     @Override
-    protected void drawFace(Graphics2D g2d, TriangleFace face, Shape triangleShape) {
-        if (selection == face)
+    protected void drawFace(Graphics2D g2d, int x, int y, boolean pointing, Shape triangleShape) {
+        if (isFace(selection, x, y, pointing))
             g2d.setColor(Color.red);
+        else if (isFace(hover, x, y, pointing))
+            g2d.setColor(Color.orange);
         else
             g2d.setColor(Color.lightGray);
 
@@ -36,14 +50,55 @@ public class DemoGridRender extends TriangleGridRenderer {
     }
 
     @Override
-    protected void drawVertex(Graphics2D g2d, Vertex vertex) {
-        if (selection == vertex)
+    protected void drawVertex(Graphics2D g2d, int x, int y) {
+        if (isVertex(selection, x, y))
             g2d.setColor(Color.red);
+        else if (isVertex(hover, x, y))
+            g2d.setColor(Color.orange);
         else
             g2d.setColor(Color.white);
 
-        g2d.fillOval(-15, -15, 30, 30);
+        g2d.fillOval(-VERTEX_RADIUS, -VERTEX_RADIUS, VERTEX_RADIUS * 2, VERTEX_RADIUS * 2);
         g2d.setColor(Color.black);
-        g2d.drawOval(-15, -15, 30, 30);
+        g2d.drawOval(-VERTEX_RADIUS, -VERTEX_RADIUS, VERTEX_RADIUS * 2, VERTEX_RADIUS * 2);
+    }
+
+    @Override
+    public double getDrawMargin() {
+        //edge strokes reach half their width past the edge, vertex circles do not scale, plus a pixel for rounding
+        return Math.max(super.getDrawMargin(), Math.max(getEdgeLength() + EDGE_WIDTH / 2, VERTEX_RADIUS) + 1);
+    }
+
+    @Override
+    protected void drawEdge(Graphics2D g2d, Edge edge, double edgeFinishX, double edgeFinishY) {
+        drawEdge(g2d, edge.getX(), edge.getY(), edge.getIndex(), edgeFinishX, edgeFinishY);
+    }
+
+    @Override
+    protected void drawFace(Graphics2D g2d, TriangleFace face, Shape triangleShape) {
+        drawFace(g2d, face.getX(), face.getY(), face.getPointing(), triangleShape);
+    }
+
+    @Override
+    protected void drawVertex(Graphics2D g2d, Vertex vertex) {
+        drawVertex(g2d, vertex.getX(), vertex.getY());
+    }
+
+    private static boolean isEdge(Object element, int x, int y, int edgeIndex) {
+        return element instanceof Edge edge && edge.getX() == x && edge.getY() == y && edge.getIndex() == edgeIndex;
+    }
+
+    private static boolean isFace(Object element, int x, int y, boolean pointing) {
+        return element instanceof TriangleFace face && face.getX() == x && face.getY() == y && face.getPointing() == pointing;
+    }
+
+    private static boolean isVertex(Object element, int x, int y) {
+        return element instanceof Vertex vertex && vertex.getX() == x && vertex.getY() == y;
+    }
+
+    @Override
+    protected void drawCell(Graphics2D g2d, GridLodPyramid lod, int level, int cellX, int cellY, Rectangle bounds) {
+        g2d.setColor(DENSITY_COLORS[(int) (lod.getEdgeDensity(level, cellX, cellY) * 255)]);
+        g2d.fill(bounds);
     }
 }
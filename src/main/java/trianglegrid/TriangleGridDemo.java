@@ -5,15 +5,22 @@ import trianglegrid.coordinates.DirectedCoordinate;
 import trianglegrid.coordinates.FractionalCoordinate;
 import trianglegrid.coordinates.TriangleCoordinate;
 import trianglegrid.grid.*;
+import trianglegrid.coordinates.PackedCoordinate;
+import trianglegrid.ui.CameraController;
+import trianglegrid.ui.GridHoverListener;
 import trianglegrid.ui.TriangleGridPane;
 import trianglegrid.ui.GridSelectionListener;
 
 import javax.swing.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 
-public class TriangleGridDemo implements GridSelectionListener {
+public class TriangleGridDemo implements GridSelectionListener, GridHoverListener {
     private final TriangleGrid grid = new TriangleGrid(2000, 2000);
     private final DemoGridRender renderer = new DemoGridRender(grid, 1000, 1000, 80);
     private final TriangleGridPane triangleGridPane = new TriangleGridPane(renderer);
+    private final GridLodPyramid lod = new GridLodPyramid(grid);
+    private final CameraController camera = new CameraController(renderer);
 
     public TriangleGridDemo()
     {
@@ -24,6 +31,24 @@ public class TriangleGridDemo implements GridSelectionListener {
         JFrame frame = new JFrame("Triangle Grid Demo");
         frame.setSize(1000, 1000);
         triangleGridPane.addTriangleSelectionListener(this);
+        triangleGridPane.addGridHoverListener(this);
+        renderer.setLevelOfDetail(lod, 8);
+        //zoom around the mouse with the wheel, the camera clamps the edge length
+        triangleGridPane.addMouseWheelListener(e -> camera.zoomBy(-e.getPreciseWheelRotation(), e.getX(), e.getY()));
+        //the camera is moved on the event dispatch thread, which also paints the pane from its tile cache
+        new Timer(1000 / 60, new ActionListener() {
+            private long lastNanos = System.nanoTime();
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                long now = System.nanoTime();
+
+                if (camera.update((now - lastNanos) / 1e9))
+                    triangleGridPane.repaint();
+
+                lastNanos = now;
+            }
+        }).start();
         frame.add(triangleGridPane);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setVisible(true);
@@ -31,26 +56,70 @@ public class TriangleGridDemo implements GridSelectionListener {
 
     @Override
     public void vertexSelected(TriangleCoordinate vertexCoordinate, Vertex vertex) {
-        renderer.selection = vertex;
-        triangleGridPane.repaint();
+        select(vertex);
     }
 
     @Override
     public void edgeSelected(DirectedCoordinate edgeCoordinate, Edge edge) {
-        renderer.selection = edge;
-        triangleGridPane.repaint();
+        //clicking an edge toggles its value, which the zoomed out density shows
+        edge.setBinaryValue(!edge.getBinaryValue());
+        lod.update(edge.getX(), edge.getY());
+        select(edge);
     }
 
     @Override
     public void faceSelected(DirectedCoordinate faceCoordinate, TriangleFace face) {
-        renderer.selection = face;
-        triangleGridPane.repaint();
+        select(face);
     }
 
     @Override
     public void gridSelected(FractionalCoordinate selectionCoordinate) {
-        renderer.setPosition(selectionCoordinate);
-        triangleGridPane.repaint();
+        //glide the camera to centre on the clicked point
+        GridGeometry geometry = renderer.getGeometry();
+        FractionalCoordinate position = renderer.getPosition();
+        camera.glideBy(geometry.gridToScreenX(selectionCoordinate.a, selectionCoordinate.b) - geometry.gridToScreenX(position.a, position.b),
+                geometry.gridToScreenY(selectionCoordinate.b) - geometry.gridToScreenY(position.b));
+    }
+
+    @Override
+    public void elementHovered(PickResult element) {
+        Object hover = toElement(element);
+        repaint(renderer.hover);
+        renderer.hover = hover;
+        repaint(hover);
+    }
+
+    @Override
+    public void elementDragged(PickResult element) {
+        select(toElement(element));
+    }
+
+    /** Highlight the selected element, redrawing only the areas under the old and new selection */
+    private void select(Object selection) {
+        repaint(renderer.selection);
+        renderer.selection = selection;
+        repaint(selection);
+    }
+
+    private void repaint(Object element) {
+        if (element instanceof Vertex vertex)
+            triangleGridPane.repaintNode(vertex.getX(), vertex.getY());
+        else if (element instanceof Edge edge)
+            triangleGridPane.repaintNode(edge.getX(), edge.getY());
+        else if (element instanceof TriangleFace face)
+            triangleGridPane.repaintNode(face.getX(), face.getY());
+    }
+
+    /** Vertex, Edge or TriangleFace that was picked, null if it lies outside the grid */
+    private Object toElement(PickResult pick) {
+        TriangleCoordinate coordinate = PackedCoordinate.toTriangleCoordinate(pick.toPacked());
+
+        if (pick.type == PickResult.VERTEX)
+            return grid.getVertex(coordinate);
+        else if (pick.type == PickResult.EDGE)
+            return grid.getEdge(coordinate, pick.direction);
+        else
+            return grid.getFace(coordinate, pick.direction);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,84 @@
+package trianglegrid.coordinates;
+
+/** Static operations on triangle coordinates packed into a single long, for hot paths that should not allocate.
+ *  The high 32 bits hold a, the low 32 bits hold b, c is always -a - b. */
+public final class PackedCoordinate {
+    /** Change in a and b for each direction, matching TriangleCoordinate.cubeDirectionVectors */
+    private static final int[] DIRECTION_A = {0, +1, +1, 0, -1, -1};
+    private static final int[] DIRECTION_B = {-1, -1, 0, +1, +1, 0};
+
+    private PackedCoordinate() {
+    }
+
+    public static long pack(int a, int b) {
+        return ((long) a << 32) | (b & 0xFFFFFFFFL);
+    }
+
+    public static int getA(long coordinate) {
+        return (int) (coordinate >> 32);
+    }
+
+    public static int getB(long coordinate) {
+        return (int) coordinate;
+    }
+
+    public static int getC(long coordinate) {
+        return -getA(coordinate) - getB(coordinate);
+    }
+
+    /** Offset column, see TriangleCoordinate.getX */
+    public static int getX(long coordinate) {
+        int b = getB(coordinate);
+        return getA(coordinate) + (b + (b & 1)) / 2;
+    }
+
+    /** Offset row, see TriangleCoordinate.getY */
+    public static int getY(long coordinate) {
+        return getB(coordinate);
+    }
+
+    public static long fromOffsetCoordinate(int x, int y) {
+        return pack(x - (y + (y & 1)) / 2, y);
+    }
+
+    public static long add(long coordinate, long other) {
+        return pack(getA(coordinate) + getA(other), getB(coordinate) + getB(other));
+    }
+
+    public static long subtract(long coordinate, long other) {
+        return pack(getA(coordinate) - getA(other), getB(coordinate) - getB(other));
+    }
+
+    public static long getNeighbour(long coordinate, int direction) {
+        direction = direction % 6;
+        return pack(getA(coordinate) + DIRECTION_A[direction], getB(coordinate) + DIRECTION_B[direction]);
+    }
+
+    /** Number of edges on the shortest path between two vertices */
+    public static int distance(long coordinate, long other) {
+        int da = getA(coordinate) - getA(other);
+        int db = getB(coordinate) - getB(other);
+        return Math.max(Math.abs(da), Math.max(Math.abs(db), Math.abs(da + db)));
+    }
+
+    /** Direction (0 - 5) from a coordinate to an adjacent coordinate, -1 if they are not adjacent */
+    public static int direction(long coordinate, long neighbour) {
+        int da = getA(neighbour) - getA(coordinate);
+        int db = getB(neighbour) - getB(coordinate);
+
+        for (int direction = 0; direction < 6; direction++) {
+            if (DIRECTION_A[direction] == da && DIRECTION_B[direction] == db)
+                return direction;
+        }
+
+        return -1;
+    }
+
+    public static long fromTriangleCoordinate(TriangleCoordinate coordinate) {
+        return pack(coordinate.a, coordinate.b);
+    }
+
+    public static TriangleCoordinate toTriangleCoordinate(long coordinate) {
+        return new TriangleCoordinate(getA(coordinate), getB(coordinate), getC(coordinate));
+    }
+}
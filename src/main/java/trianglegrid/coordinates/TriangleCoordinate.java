@@ -39,6 +39,11 @@ public class TriangleCoordinate {
         return addCoordinate(cubeDirectionVectors[direction % 6]);
     }
 
+    /** This coordinate packed into a long, see PackedCoordinate */
+    public long toPacked() {
+        return PackedCoordinate.pack(a, b);
+    }
+
     public static TriangleCoordinate fromOffsetCoordinate(int x, int y) {
         int a = x - (y + (y&1)) / 2;
         int b = y;
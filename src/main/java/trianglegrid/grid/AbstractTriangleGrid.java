@@ -0,0 +1,343 @@
+package trianglegrid.grid;
+
+import trianglegrid.coordinates.PackedCoordinate;
+import trianglegrid.coordinates.TriangleCoordinate;
+
+import java.util.stream.StreamSupport;
+
+/** Lookup operations shared by all triangle grid storage layouts.
+ *  Vertex, Edge and TriangleFace objects returned by the lookup methods are lightweight views onto the grid data.
+ *  Implementations must allow reads from several threads at once while nothing is written, parallel operations such as
+ *  parallelForEachElement rely on it. */
+public abstract class AbstractTriangleGrid {
+    /** Bit flags marking which elements of a node exist, in GridSlot order after the vertex */
+    static final int EDGE_0 = 1;
+    static final int EDGE_1 = 1 << 1;
+    static final int EDGE_2 = 1 << 2;
+    static final int FACE_UP = 1 << 3;
+    static final int FACE_DOWN = 1 << 4;
+
+    /** For each face direction (0 - 5) from a vertex: the direction of the vertex owning the face (-1 for itself) and its pointing */
+    private static final int[] FACE_OWNER = {0, -1, 1, 3, -1, 4};
+    private static final boolean[] FACE_POINTING = {
+            TriangleFace.POINTY_DOWN, TriangleFace.POINTY_UP, TriangleFace.POINTY_DOWN,
+            TriangleFace.POINTY_UP, TriangleFace.POINTY_DOWN, TriangleFace.POINTY_UP};
+
+    /** Dimensions in number of vertices. */
+    protected final int gridWidth;
+    protected final int gridHeight;
+
+    protected AbstractTriangleGrid(int gridWidth, int gridHeight) {
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+    }
+
+    /** Existence flags of the node at (x, y). Coordinates are not bounds checked. */
+    protected abstract int getNodeFlags(int x, int y);
+
+    /** Binary value of the edge (0 - 2) owned by the node at (x, y). Coordinates are not bounds checked. */
+    public abstract boolean getEdgeValue(int x, int y, int edgeIndex);
+
+    /** Set the binary value of the edge (0 - 2) owned by the node at (x, y). Coordinates are not bounds checked. */
+    public abstract void setEdgeValue(int x, int y, int edgeIndex, boolean value);
+
+    /** Value (0 - 255) of the vertex at (x, y). Coordinates are not bounds checked. */
+    public abstract int getVertexValue(int x, int y);
+
+    /** Set the value of the vertex at (x, y), only the low 8 bits are kept. Coordinates are not bounds checked. */
+    public abstract void setVertexValue(int x, int y, int value);
+
+    /** Value (0 - 255) of the face owned by the node at (x, y). Coordinates are not bounds checked. */
+    public abstract int getFaceValue(int x, int y, boolean pointing);
+
+    /** Set the value of the face owned by the node at (x, y), only the low 8 bits are kept. Coordinates are not bounds checked. */
+    public abstract void setFaceValue(int x, int y, boolean pointing, int value);
+
+    /** Calculate the existence flags of a node from its position, elements are missing where they would cross the border */
+    static int computeNodeFlags(int x, int y, int gridWidth, int gridHeight) {
+        //odd rows are shifted half a triangle, so their upper and lower neighbours start one column earlier
+        int parity = y & 1;
+        boolean hasRowAbove = y > 0;
+        boolean hasRowBelow = y + 1 < gridHeight;
+        boolean leftInBounds = x - parity >= 0;
+        boolean rightInBounds = x + 1 - parity < gridWidth;
+
+        //validate for border vertices
+        boolean vertex0 = hasRowAbove && leftInBounds;
+        boolean vertex1 = hasRowAbove && rightInBounds;
+        boolean vertex2 = x + 1 < gridWidth;
+        boolean facePointyUp = vertex0 && vertex1;
+        boolean facePointyDown = hasRowBelow && leftInBounds && rightInBounds;
+
+        int flags = 0;
+        if (vertex0)
+            flags |= EDGE_0;
+        if (vertex1)
+            flags |= EDGE_1;
+        if (vertex2)
+            flags |= EDGE_2;
+        if (facePointyUp)
+            flags |= FACE_UP;
+        if (facePointyDown)
+            flags |= FACE_DOWN;
+        return flags;
+    }
+
+    /** Determines whether a coordinate falls within the grid */
+    public boolean isInBounds(int x, int y) {
+        if (y < 0 || y >= gridHeight || x < 0 || x >= gridWidth)
+            return false;
+        else
+            return true;
+    }
+
+    /** Return a TriangleGridNode. null if coordinate falls outside grid  */
+    public TriangleGridNode getNode(int x, int y) {
+        if (!isInBounds(x, y))
+            return null;
+        else
+            return new TriangleGridNode(this, x, y, getNodeFlags(x, y));
+    }
+
+    /** Return a TriangleGridNode. null if coordinate falls outside grid  */
+    public TriangleGridNode getNode(TriangleCoordinate coordinate) {
+        return getNode(coordinate.getX(), coordinate.getY());
+    }
+
+    /** Return a Vertex. null if coordinate falls outside grid */
+    public Vertex getVertex(TriangleCoordinate coordinate) {
+        return getVertex(coordinate.getX(), coordinate.getY());
+    }
+
+    /** Return the Vertex at a packed coordinate. null if coordinate falls outside grid */
+    public Vertex getVertex(long coordinate) {
+        return getVertex(PackedCoordinate.getX(coordinate), PackedCoordinate.getY(coordinate));
+    }
+
+    /** Return the Vertex at offset coordinate (x, y). null if coordinate falls outside grid */
+    public Vertex getVertex(int x, int y) {
+        if (isInBounds(x, y))
+            return new Vertex(this, x, y);
+        else
+            return null;
+    }
+
+    /** Return Edge given a vertex coordinate and a direction. null if coordinate falls outside grid */
+    public Edge getEdge(TriangleCoordinate coordinate, int edgeIndex) {
+        return getEdge(coordinate.toPacked(), edgeIndex);
+    }
+
+    /** Return Edge given a packed vertex coordinate and a direction (0 - 5). null if coordinate falls outside grid */
+    public Edge getEdge(long coordinate, int direction) {
+        long owner = edgeOwner(coordinate, direction);
+        return getEdge(PackedCoordinate.getX(owner), PackedCoordinate.getY(owner), direction % 3);
+    }
+
+    /** Whether the edge in the given direction (0 - 5) from a packed vertex coordinate exists */
+    public boolean hasEdge(long coordinate, int direction) {
+        long owner = edgeOwner(coordinate, direction);
+        return hasEdge(PackedCoordinate.getX(owner), PackedCoordinate.getY(owner), direction % 3);
+    }
+
+    /** Binary value of the edge in the given direction (0 - 5) from a packed vertex coordinate. Not bounds checked. */
+    public boolean getEdgeValue(long coordinate, int direction) {
+        long owner = edgeOwner(coordinate, direction);
+        return getEdgeValue(PackedCoordinate.getX(owner), PackedCoordinate.getY(owner), direction % 3);
+    }
+
+    /** Set the binary value of the edge in the given direction (0 - 5) from a packed vertex coordinate. Not bounds checked. */
+    public void setEdgeValue(long coordinate, int direction, boolean value) {
+        long owner = edgeOwner(coordinate, direction);
+        setEdgeValue(PackedCoordinate.getX(owner), PackedCoordinate.getY(owner), direction % 3, value);
+    }
+
+    /** Edges in directions 3 - 5 belong to the neighbouring vertex in that direction */
+    private static long edgeOwner(long coordinate, int direction) {
+        if (direction >= 3)
+            return PackedCoordinate.getNeighbour(coordinate, direction);
+        else
+            return coordinate;
+    }
+
+    /** Return the Edge (0 - 2) owned by the node at offset coordinate (x, y). null if it does not exist */
+    public Edge getEdge(int x, int y, int edgeIndex) {
+        if (hasEdge(x, y, edgeIndex))
+            return new Edge(this, x, y, edgeIndex);
+        else
+            return null;
+    }
+
+    /** Return the pointy up or pointy down Face owned by the node at offset coordinate (x, y). null if it does not exist */
+    public TriangleFace getFace(int x, int y, boolean pointing) {
+        if (hasFace(x, y, pointing))
+            return new TriangleFace(this, x, y, pointing);
+        else
+            return null;
+    }
+
+    /** Return Face given a vertex coordinate and a direction. null if coordinate falls outside grid */
+    public TriangleFace getFace(TriangleCoordinate coordinate, int direction) {
+        return getFace(coordinate.toPacked(), direction);
+    }
+
+    /** Return Face given a packed vertex coordinate and a direction (0 - 5). null if coordinate falls outside grid */
+    public TriangleFace getFace(long coordinate, int direction) {
+        direction = direction % 6;
+
+        if (direction < 0)
+            return null;
+
+        long owner = faceOwner(coordinate, direction);
+        return getFace(PackedCoordinate.getX(owner), PackedCoordinate.getY(owner), FACE_POINTING[direction]);
+    }
+
+    /** Whether the face in the given direction (0 - 5) from a packed vertex coordinate exists */
+    public boolean hasFace(long coordinate, int direction) {
+        direction = direction % 6;
+
+        if (direction < 0)
+            return false;
+
+        long owner = faceOwner(coordinate, direction);
+        return hasFace(PackedCoordinate.getX(owner), PackedCoordinate.getY(owner), FACE_POINTING[direction]);
+    }
+
+    /** Faces either side of directions 1 and 4 belong to the vertex itself, the rest to the neighbour noted in FACE_OWNER */
+    private static long faceOwner(long coordinate, int direction) {
+        if (FACE_OWNER[direction] < 0)
+            return coordinate;
+        else
+            return PackedCoordinate.getNeighbour(coordinate, FACE_OWNER[direction]);
+    }
+
+    /** Whether the edge (0 - 2) owned by the node at (x, y) exists */
+    public boolean hasEdge(int x, int y, int edgeIndex) {
+        return isInBounds(x, y) && (getNodeFlags(x, y) & (EDGE_0 << edgeIndex)) != 0;
+    }
+
+    /** Whether the pointy up or pointy down face owned by the node at (x, y) exists */
+    public boolean hasFace(int x, int y, boolean pointing) {
+        int flag = pointing == TriangleFace.POINTY_UP ? FACE_UP : FACE_DOWN;
+        return isInBounds(x, y) && (getNodeFlags(x, y) & flag) != 0;
+    }
+
+    /** Whether the node at (x, y) is in bounds and has an element at the GridSlot, every node has a vertex */
+    public boolean hasSlot(int x, int y, int slot) {
+        return isInBounds(x, y) && (((getNodeFlags(x, y) << 1) | 1) & (1 << slot)) != 0;
+    }
+
+    /** Value of the element at a GridSlot of the node at (x, y): 0 or 1 for edges, 0 - 255 otherwise. Not bounds checked. */
+    public int getValue(int x, int y, int slot) {
+        if (slot == GridSlot.VERTEX)
+            return getVertexValue(x, y);
+        else if (GridSlot.isEdge(slot))
+            return getEdgeValue(x, y, GridSlot.edgeIndex(slot)) ? 1 : 0;
+        else
+            return getFaceValue(x, y, GridSlot.pointing(slot));
+    }
+
+    /** Set the value of the element at a GridSlot of the node at (x, y), edges are set when value is non zero. Not bounds checked. */
+    public void setValue(int x, int y, int slot, int value) {
+        if (slot == GridSlot.VERTEX)
+            setVertexValue(x, y, value);
+        else if (GridSlot.isEdge(slot))
+            setEdgeValue(x, y, GridSlot.edgeIndex(slot), value != 0);
+        else
+            setFaceValue(x, y, GridSlot.pointing(slot), value);
+    }
+
+    /** Visit the vertices of every node in the region, in row order */
+    public void forEachVertex(GridRegion region, ElementVisitor visitor) {
+        forEachElement(region, GridSlot.VERTICES, visitor);
+    }
+
+    /** Visit the existing edges owned by nodes in the region, in row order */
+    public void forEachEdge(GridRegion region, ElementVisitor visitor) {
+        forEachElement(region, GridSlot.EDGES, visitor);
+    }
+
+    /** Visit the existing faces owned by nodes in the region, in row order */
+    public void forEachFace(GridRegion region, ElementVisitor visitor) {
+        forEachElement(region, GridSlot.FACES, visitor);
+    }
+
+    /** Visit the existing elements in the given GridSlot mask owned by nodes in the region, in row order */
+    public void forEachElement(GridRegion region, int slotMask, ElementVisitor visitor) {
+        int minRow = Math.max(0, region.getMinRow());
+        int maxRow = Math.min(gridHeight - 1, region.getMaxRow());
+
+        for (int y = minRow; y <= maxRow; y++)
+            visitRow(region, y, slotMask, visitor);
+    }
+
+    /** Visit elements as forEachElement, with rows split across the common fork-join pool.
+     *  The visitor must be thread safe and elements are not visited in order. */
+    public void parallelForEachElement(GridRegion region, int slotMask, ElementVisitor visitor) {
+        StreamSupport.intStream(region.rowSpliterator(), true)
+                .filter(y -> y >= 0 && y < gridHeight)
+                .forEach(y -> visitRow(region, y, slotMask, visitor));
+    }
+
+    private void visitRow(GridRegion region, int y, int slotMask, ElementVisitor visitor) {
+        for (int span = 0; span < region.getSpanCount(y); span++) {
+            int startX = Math.max(0, region.getSpanStart(y, span));
+            int endX = Math.min(gridWidth - 1, region.getSpanEnd(y, span));
+
+            for (int x = startX; x <= endX; x++) {
+                //node flags shifted into GridSlot bit positions, every node has a vertex
+                int slots = ((getNodeFlags(x, y) << 1) | 1) & slotMask;
+
+                while (slots != 0) {
+                    int slot = Integer.numberOfTrailingZeros(slots);
+                    visitor.visit(x, y, slot);
+                    slots &= slots - 1;
+                }
+            }
+        }
+    }
+
+    /** Grid width in vertices */
+    public int getWidth() {
+        return gridWidth;
+    }
+
+    /** Grid height in vertices */
+    public int getHeight() {
+        return gridHeight;
+    }
+
+    /** View of the data held at a single grid position.
+     *  Each node contains:
+     *  1 vertex,
+     *  2 faces,
+     *  3 edges.
+     *
+     *  Every cell is guaranteed to contain a vertex, but not necessarily all faces and edges (around the grid border).
+     *  */
+    public static class TriangleGridNode {
+        public final Vertex vertex;
+        public final TriangleFace faceUp;
+        public final TriangleFace faceDown;
+        public final Edge[] edges = new Edge[3];
+
+        TriangleGridNode(AbstractTriangleGrid grid, int x, int y, int flags) {
+            vertex = new Vertex(grid, x, y);
+
+            //flags determine whether they exist or not (eg. border)
+            for (int edgeIndex = 0; edgeIndex < 3; edgeIndex++) {
+                if ((flags & (EDGE_0 << edgeIndex)) != 0)
+                    edges[edgeIndex] = new Edge(grid, x, y, edgeIndex);
+            }
+
+            if ((flags & FACE_UP) != 0)
+                faceUp = new TriangleFace(grid, x, y, TriangleFace.POINTY_UP);
+            else
+                faceUp = null;
+
+            if ((flags & FACE_DOWN) != 0)
+                faceDown = new TriangleFace(grid, x, y, TriangleFace.POINTY_DOWN);
+            else
+                faceDown = null;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package trianglegrid.grid;
+
+/** Modifies the values of a GridChunk in place while a chunk stream is copied, see GridStreams.transform. */
+@FunctionalInterface
+public interface ChunkTransform {
+    void apply(GridChunk chunk);
+}
@@ -0,0 +1,201 @@
+package trianglegrid.grid;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Triangle grid that materialises fixed size chunks of nodes on first access.
+ *  Startup cost and memory use depend on the area visited rather than the grid dimensions, so the grid can span up to
+ *  Integer.MAX_VALUE nodes in each direction.
+ *
+ *  Chunks that have never been modified are evicted least recently used first once the memory budget is exceeded and
+ *  are rebuilt from the EdgeInitializer on their next access, which must therefore be a pure function of edge position.
+ *  Modified chunks are never evicted.
+ *
+ *  Reads may be made from several threads at once: chunk lookup and eviction are guarded by the grid's lock, with the
+ *  most recently used chunk cached outside it. Writes must not run concurrently with other reads or writes. */
+public class ChunkedTriangleGrid extends AbstractTriangleGrid {
+    /** Chunks are CHUNK_SIZE x CHUNK_SIZE nodes */
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /** Approximate heap used by one chunk: edge bitset, vertex and face values plus object and map entry overhead */
+    static final long CHUNK_BYTES = (CHUNK_SIZE * CHUNK_SIZE * 3 / 64) * 8 + CHUNK_SIZE * CHUNK_SIZE * 3 + 192;
+    /** Default memory budget for unmodified chunks */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L * 1024 * 1024;
+
+    private final EdgeInitializer edgeInitializer;
+    /** Maximum number of unmodified chunks held at once */
+    private final long maxCleanChunks;
+    /** Unmodified chunks in access order, eldest first */
+    private final LinkedHashMap<Long, Chunk> cleanChunks = new LinkedHashMap<>(16, 0.75f, true);
+    /** Modified chunks, never evicted */
+    private final Map<Long, Chunk> dirtyChunks = new HashMap<>();
+
+    /** Most recently used chunk, lookups tend to be clustered. Read without holding the lock. */
+    private volatile CachedChunk lastChunk = new CachedChunk(-1, null);
+
+    /** Constructs an effectively unbounded grid with random edge values */
+    public ChunkedTriangleGrid() {
+        this(Integer.MAX_VALUE, Integer.MAX_VALUE, EdgeInitializer.random(), DEFAULT_MEMORY_BUDGET);
+    }
+
+    /** Constructs a grid with edge values supplied by the given initializer and a memory budget in bytes for unmodified chunks */
+    public ChunkedTriangleGrid(int gridWidth, int gridHeight, EdgeInitializer edgeInitializer, long memoryBudgetBytes) {
+        super(gridWidth, gridHeight);
+        this.edgeInitializer = edgeInitializer;
+        this.maxCleanChunks = Math.max(1, memoryBudgetBytes / CHUNK_BYTES);
+    }
+
+    /** Return the chunk containing (x, y), creating it if necessary */
+    private Chunk getChunk(int x, int y) {
+        long key = chunkKey(x >>> CHUNK_SHIFT, y >>> CHUNK_SHIFT);
+        CachedChunk cached = lastChunk;
+
+        if (cached.key == key)
+            return cached.chunk;
+
+        synchronized (this) {
+            return lookupChunk(key, x, y);
+        }
+    }
+
+    /** Find or build the chunk with the given key, which contains (x, y). Must be called holding the lock. */
+    private Chunk lookupChunk(long key, int x, int y) {
+        Chunk chunk = dirtyChunks.get(key);
+
+        if (chunk == null)
+            chunk = cleanChunks.get(key);
+
+        if (chunk == null) {
+            chunk = new Chunk(x & ~CHUNK_MASK, y & ~CHUNK_MASK);
+            cleanChunks.put(key, chunk);
+            evictCleanChunks(chunk);
+        }
+
+        lastChunk = new CachedChunk(key, chunk);
+        return chunk;
+    }
+
+    /** Evict the least recently used clean chunks over the limit, other than the one just added.
+     *  A reader still holding an evicted chunk sees correct values, as clean chunks only hold initial values. */
+    private void evictCleanChunks(Chunk added) {
+        Iterator<Chunk> iterator = cleanChunks.values().iterator();
+
+        while (cleanChunks.size() > maxCleanChunks && iterator.hasNext()) {
+            if (iterator.next() != added)
+                iterator.remove();
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkY) {
+        return ((long) chunkY << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+    /** Number of chunks currently held in memory */
+    public synchronized int getLoadedChunkCount() {
+        return cleanChunks.size() + dirtyChunks.size();
+    }
+
+    @Override
+    protected int getNodeFlags(int x, int y) {
+        return computeNodeFlags(x, y, gridWidth, gridHeight);
+    }
+
+    @Override
+    public boolean getEdgeValue(int x, int y, int edgeIndex) {
+        Chunk chunk = getChunk(x, y);
+        int bit = chunkBit(x, y, edgeIndex);
+        return (chunk.edgeValues[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    @Override
+    public void setEdgeValue(int x, int y, int edgeIndex, boolean value) {
+        Chunk chunk = getChunkForWrite(x, y);
+        int bit = chunkBit(x, y, edgeIndex);
+
+        if (value)
+            chunk.edgeValues[bit >>> 6] |= 1L << bit;
+        else
+            chunk.edgeValues[bit >>> 6] &= ~(1L << bit);
+    }
+
+    @Override
+    public int getVertexValue(int x, int y) {
+        return getChunk(x, y).vertexValues[chunkNode(x, y)] & 0xFF;
+    }
+
+    @Override
+    public void setVertexValue(int x, int y, int value) {
+        getChunkForWrite(x, y).vertexValues[chunkNode(x, y)] = (byte) value;
+    }
+
+    @Override
+    public int getFaceValue(int x, int y, boolean pointing) {
+        return getChunk(x, y).faceValues[GridState.faceIndex(chunkNode(x, y), pointing)] & 0xFF;
+    }
+
+    @Override
+    public void setFaceValue(int x, int y, boolean pointing, int value) {
+        getChunkForWrite(x, y).faceValues[GridState.faceIndex(chunkNode(x, y), pointing)] = (byte) value;
+    }
+
+    /** Return the chunk containing (x, y), pinning it so the change about to be made is not lost to eviction */
+    private Chunk getChunkForWrite(int x, int y) {
+        long key = chunkKey(x >>> CHUNK_SHIFT, y >>> CHUNK_SHIFT);
+        CachedChunk cached = lastChunk;
+
+        if (cached.key == key && cached.chunk.dirty)
+            return cached.chunk;
+
+        synchronized (this) {
+            //look up again rather than trusting the cache, the cached chunk may have been evicted and replaced
+            Chunk chunk = lookupChunk(key, x, y);
+
+            if (!chunk.dirty) {
+                cleanChunks.remove(key);
+                dirtyChunks.put(key, chunk);
+                chunk.dirty = true;
+            }
+
+            return chunk;
+        }
+    }
+
+    /** Node index of (x, y) within its chunk */
+    private static int chunkNode(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) + (x & CHUNK_MASK);
+    }
+
+    /** Bit index of an edge within its chunk */
+    private static int chunkBit(int x, int y, int edgeIndex) {
+        return chunkNode(x, y) * 3 + edgeIndex;
+    }
+
+    /** Key and chunk of the last lookup, replaced as a whole so readers never see a key paired with another chunk */
+    private record CachedChunk(long key, Chunk chunk) {
+    }
+
+    /** A CHUNK_SIZE x CHUNK_SIZE block of nodes. Existence flags are calculated from position so only element values are stored. */
+    private class Chunk {
+        private final long[] edgeValues = new long[CHUNK_SIZE * CHUNK_SIZE * 3 / 64];
+        private final byte[] vertexValues = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        private final byte[] faceValues = new byte[CHUNK_SIZE * CHUNK_SIZE * 2];
+        /** Set under the lock when the chunk is first modified, after which it is never evicted */
+        private volatile boolean dirty;
+
+        private Chunk(int originX, int originY) {
+            for (int localY = 0; localY < CHUNK_SIZE; localY++) {
+                for (int localX = 0; localX < CHUNK_SIZE; localX++) {
+                    for (int edgeIndex = 0; edgeIndex < 3; edgeIndex++) {
+                        int bit = ((localY << CHUNK_SHIFT) + localX) * 3 + edgeIndex;
+
+                        if (edgeInitializer.initialValue(originX + localX, originY + localY, edgeIndex))
+                            edgeValues[bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package trianglegrid.grid;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/** TriangleGrid that can be read and written from any thread.
+ *  Values are stored in CHUNK_SIZE x CHUNK_SIZE chunks. Writes to a chunk are serialised by one of STRIPES locks and
+ *  published with release stores, reads take no lock. snapshot() freezes the current chunks for a renderer to read a
+ *  consistent frame: a writer copies a frozen chunk before changing it, so writers are never blocked by readers.
+ *  While nothing is written the last snapshot is reused, so chunks are only copied after a snapshot of changed state. */
+public class ConcurrentTriangleGrid extends AbstractTriangleGrid {
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /** Number of locks shared between the chunks */
+    private static final int STRIPES = 64;
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+    private final int chunkColumns;
+    private final AtomicReferenceArray<Chunk> chunks;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    /** Writes completed so far, counted under the chunk's lock */
+    private final LongAdder writeCount = new LongAdder();
+    /** Returned by snapshot until the next write */
+    private volatile CachedSnapshot lastSnapshot;
+
+    public ConcurrentTriangleGrid(int gridWidth, int gridHeight) {
+        this(gridWidth, gridHeight, EdgeInitializer.random());
+    }
+
+    /** Constructs a grid with edge values supplied by the given initializer */
+    public ConcurrentTriangleGrid(int gridWidth, int gridHeight, EdgeInitializer edgeInitializer) {
+        super(gridWidth, gridHeight);
+        chunkColumns = (gridWidth + CHUNK_MASK) >>> CHUNK_SHIFT;
+        int chunkRows = (gridHeight + CHUNK_MASK) >>> CHUNK_SHIFT;
+        chunks = new AtomicReferenceArray<>(chunkColumns * chunkRows);
+
+        for (int i = 0; i < STRIPES; i++)
+            locks[i] = new ReentrantLock();
+
+        IntStream.range(0, chunks.length()).parallel().forEach(i ->
+                chunks.set(i, new Chunk((i % chunkColumns) << CHUNK_SHIFT, (i / chunkColumns) << CHUNK_SHIFT, edgeInitializer)));
+    }
+
+    /** Freeze the current state of the grid. All locks are held while the chunk references are captured, so the snapshot
+     *  sees every write that completed before it and none that started after. Only the references are copied here.
+     *  If nothing has been written since the last snapshot, that snapshot is returned again. */
+    public GridSnapshot snapshot() {
+        CachedSnapshot cached = lastSnapshot;
+
+        //a write in progress is not counted yet, and the cached snapshot is a valid cut before it
+        if (cached != null && cached.writeCount == writeCount.sum())
+            return cached.snapshot;
+
+        Chunk[] frozen = new Chunk[chunks.length()];
+        long frozenWriteCount;
+
+        for (ReentrantLock lock : locks)
+            lock.lock();
+
+        try {
+            for (int i = 0; i < frozen.length; i++) {
+                Chunk chunk = chunks.get(i);
+                chunk.frozen = true;
+                frozen[i] = chunk;
+            }
+
+            frozenWriteCount = writeCount.sum();
+        } finally {
+            for (ReentrantLock lock : locks)
+                lock.unlock();
+        }
+
+        GridSnapshot snapshot = new GridSnapshot(gridWidth, gridHeight, chunkColumns, frozen);
+        lastSnapshot = new CachedSnapshot(snapshot, frozenWriteCount);
+        return snapshot;
+    }
+
+    @Override
+    protected int getNodeFlags(int x, int y) {
+        return computeNodeFlags(x, y, gridWidth, gridHeight);
+    }
+
+    @Override
+    public boolean getEdgeValue(int x, int y, int edgeIndex) {
+        int bit = chunkNode(x, y) * 3 + edgeIndex;
+        long word = (long) LONGS.getAcquire(chunks.get(chunkIndex(x, y)).edgeValues, bit >>> 6);
+        return (word & (1L << bit)) != 0;
+    }
+
+    @Override
+    public void setEdgeValue(int x, int y, int edgeIndex, boolean value) {
+        int chunkIndex = chunkIndex(x, y);
+        int bit = chunkNode(x, y) * 3 + edgeIndex;
+
+        ReentrantLock lock = locks[chunkIndex % STRIPES];
+        lock.lock();
+
+        try {
+            long[] edgeValues = writableChunk(chunkIndex).edgeValues;
+            long word = edgeValues[bit >>> 6];
+            LONGS.setRelease(edgeValues, bit >>> 6, value ? word | (1L << bit) : word & ~(1L << bit));
+            writeCount.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getVertexValue(int x, int y) {
+        return (byte) BYTES.getAcquire(chunks.get(chunkIndex(x, y)).vertexValues, chunkNode(x, y)) & 0xFF;
+    }
+
+    @Override
+    public void setVertexValue(int x, int y, int value) {
+        int chunkIndex = chunkIndex(x, y);
+
+        ReentrantLock lock = locks[chunkIndex % STRIPES];
+        lock.lock();
+
+        try {
+            BYTES.setRelease(writableChunk(chunkIndex).vertexValues, chunkNode(x, y), (byte) value);
+            writeCount.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getFaceValue(int x, int y, boolean pointing) {
+        int index = GridState.faceIndex(chunkNode(x, y), pointing);
+        return (byte) BYTES.getAcquire(chunks.get(chunkIndex(x, y)).faceValues, index) & 0xFF;
+    }
+
+    @Override
+    public void setFaceValue(int x, int y, boolean pointing, int value) {
+        int chunkIndex = chunkIndex(x, y);
+
+        ReentrantLock lock = locks[chunkIndex % STRIPES];
+        lock.lock();
+
+        try {
+            BYTES.setRelease(writableChunk(chunkIndex).faceValues, GridState.faceIndex(chunkNode(x, y), pointing), (byte) value);
+            writeCount.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Chunk to modify in place, copying it first if a snapshot holds it. Must be called holding the chunk's lock. */
+    private Chunk writableChunk(int chunkIndex) {
+        Chunk chunk = chunks.get(chunkIndex);
+
+        if (chunk.frozen) {
+            chunk = new Chunk(chunk);
+            chunks.set(chunkIndex, chunk);
+        }
+
+        return chunk;
+    }
+
+    private int chunkIndex(int x, int y) {
+        return (y >>> CHUNK_SHIFT) * chunkColumns + (x >>> CHUNK_SHIFT);
+    }
+
+    /** Node index of (x, y) within its chunk */
+    static int chunkNode(int x, int y) {
+        return ((y & CHUNK_MASK) << CHUNK_SHIFT) + (x & CHUNK_MASK);
+    }
+
+    /** A snapshot and the number of writes it includes */
+    private record CachedSnapshot(GridSnapshot snapshot, long writeCount) {
+    }
+
+    /** Element values of a CHUNK_SIZE x CHUNK_SIZE block of nodes */
+    static class Chunk {
+        final long[] edgeValues;
+        final byte[] vertexValues;
+        final byte[] faceValues;
+        /** Set once a snapshot holds this chunk, after which it is never modified. Guarded by the chunk's lock. */
+        private boolean frozen;
+
+        private Chunk(int originX, int originY, EdgeInitializer edgeInitializer) {
+            edgeValues = new long[CHUNK_SIZE * CHUNK_SIZE * 3 / 64];
+            vertexValues = new byte[CHUNK_SIZE * CHUNK_SIZE];
+            faceValues = new byte[CHUNK_SIZE * CHUNK_SIZE * 2];
+
+            for (int localY = 0; localY < CHUNK_SIZE; localY++) {
+                for (int localX = 0; localX < CHUNK_SIZE; localX++) {
+                    for (int edgeIndex = 0; edgeIndex < 3; edgeIndex++) {
+                        int bit = ((localY << CHUNK_SHIFT) + localX) * 3 + edgeIndex;
+
+                        if (edgeInitializer.initialValue(originX + localX, originY + localY, edgeIndex))
+                            edgeValues[bit >>> 6] |= 1L << bit;
+                    }
+                }
+            }
+        }
+
+        private Chunk(Chunk other) {
+            edgeValues = other.edgeValues.clone();
+            vertexValues = other.vertexValues.clone();
+            faceValues = other.faceValues.clone();
+        }
+    }
+}
@@ -1,7 +1,48 @@
 package trianglegrid.grid;
 
-import java.util.Random;
-
+/** Flyweight view of an edge stored in a TriangleGrid. Edges are owned by the node at (x, y) with an index of 0 - 2. */
 public class Edge {
-    public boolean binaryValue = new Random().nextBoolean();
+    private final AbstractTriangleGrid grid;
+    private final int x, y, edgeIndex;
+
+    Edge(AbstractTriangleGrid grid, int x, int y, int edgeIndex) {
+        this.grid = grid;
+        this.x = x;
+        this.y = y;
+        this.edgeIndex = edgeIndex;
+    }
+
+    public boolean getBinaryValue() {
+        return grid.getEdgeValue(x, y, edgeIndex);
+    }
+
+    public void setBinaryValue(boolean binaryValue) {
+        grid.setEdgeValue(x, y, edgeIndex, binaryValue);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getIndex() {
+        return edgeIndex;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Edge))
+            return false;
+
+        Edge other = (Edge) o;
+        return grid == other.grid && x == other.x && y == other.y && edgeIndex == other.edgeIndex;
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * (31 * x + y)) + edgeIndex;
+    }
 }
@@ -0,0 +1,32 @@
+package trianglegrid.grid;
+
+import java.util.SplittableRandom;
+
+/** Supplies the initial binary value of each edge when a TriangleGrid is constructed. */
+@FunctionalInterface
+public interface EdgeInitializer {
+    /** Initial value of the edge (0 - 2) owned by the node at (x, y) */
+    boolean initialValue(int x, int y, int edgeIndex);
+
+    /** Every edge starts with the same value */
+    static EdgeInitializer constant(boolean value) {
+        return (x, y, edgeIndex) -> value;
+    }
+
+    /** Pseudo-random values derived from the seed and edge position only, so a seeded grid is identical on every run
+     *  regardless of the order its edges are initialised in. */
+    static EdgeInitializer seeded(long seed) {
+        return (x, y, edgeIndex) -> {
+            //SplitMix64 finaliser over the edge position
+            long z = seed + (((long) y << 32 | (x & 0xFFFFFFFFL)) * 3 + edgeIndex) * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return ((z ^ (z >>> 31)) & 1) != 0;
+        };
+    }
+
+    /** Pseudo-random values with a fresh seed */
+    static EdgeInitializer random() {
+        return seeded(new SplittableRandom().nextLong());
+    }
+}
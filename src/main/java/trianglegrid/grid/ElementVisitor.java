@@ -0,0 +1,7 @@
+package trianglegrid.grid;
+
+/** Receives grid elements as the offset coordinate of their owning node and a GridSlot, without allocating views. */
+@FunctionalInterface
+public interface ElementVisitor {
+    void visit(int x, int y, int slot);
+}
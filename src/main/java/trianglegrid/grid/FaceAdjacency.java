@@ -0,0 +1,43 @@
+package trianglegrid.grid;
+
+/** Static offset coordinate arithmetic for the faces sharing an edge with a face.
+ *  Side i (0 - 2) of a face is its edge with index i, and the face across it always points the opposite way.
+ *  Results are not bounds checked. */
+public final class FaceAdjacency {
+    /** Offsets as base + coefficient * (y & 1), indexed [pointy down ? 1 : 0][side] */
+    private static final int[][] ADJACENT_X = {{0, 1, 0}, {1, 0, 0}};
+    private static final int[][] ADJACENT_X_PARITY = {{-1, -1, 0}, {-1, -1, 0}};
+    private static final int[][] ADJACENT_Y = {{-1, -1, -2}, {1, 1, 2}};
+    private static final int[][] EDGE_X = {{0, 0, 0}, {1, 0, 0}};
+    private static final int[][] EDGE_X_PARITY = {{0, 0, -1}, {-1, -1, -1}};
+    private static final int[][] EDGE_Y = {{0, 0, -1}, {1, 1, 1}};
+
+    private FaceAdjacency() {
+    }
+
+    /** Column of the node owning the face across the given side */
+    public static int adjacentX(int x, int y, boolean pointing, int side) {
+        int p = index(pointing);
+        return x + ADJACENT_X[p][side] + ADJACENT_X_PARITY[p][side] * (y & 1);
+    }
+
+    /** Row of the node owning the face across the given side */
+    public static int adjacentY(int y, boolean pointing, int side) {
+        return y + ADJACENT_Y[index(pointing)][side];
+    }
+
+    /** Column of the node owning the edge on the given side */
+    public static int edgeX(int x, int y, boolean pointing, int side) {
+        int p = index(pointing);
+        return x + EDGE_X[p][side] + EDGE_X_PARITY[p][side] * (y & 1);
+    }
+
+    /** Row of the node owning the edge on the given side */
+    public static int edgeY(int y, boolean pointing, int side) {
+        return y + EDGE_Y[index(pointing)][side];
+    }
+
+    private static int index(boolean pointing) {
+        return pointing == TriangleFace.POINTY_UP ? 0 : 1;
+    }
+}
@@ -0,0 +1,59 @@
+package trianglegrid.grid;
+
+import java.util.function.Predicate;
+
+/** Decides which faces belong to a region and which edges a region may spread across, for FaceRegions. */
+public interface FaceConnectivity {
+    /** Whether the face owned by the node at (x, y) can be part of a region.
+     *  Called for many faces at once from several threads, so it must only read the grid and have no side effects. */
+    default boolean includesFace(AbstractTriangleGrid grid, int x, int y, boolean pointing) {
+        return true;
+    }
+
+    /** Whether a region may spread across the edge (0 - 2) owned by the node at (x, y) */
+    default boolean crossesEdge(AbstractTriangleGrid grid, int x, int y, int edgeIndex) {
+        return true;
+    }
+
+    /** Every face is connected to all its neighbours */
+    static FaceConnectivity all() {
+        return new FaceConnectivity() {
+        };
+    }
+
+    /** Faces with equal values are connected */
+    static FaceConnectivity faceValue(int value) {
+        return new FaceConnectivity() {
+            public boolean includesFace(AbstractTriangleGrid grid, int x, int y, boolean pointing) {
+                return grid.getFaceValue(x, y, pointing) == value;
+            }
+        };
+    }
+
+    /** Regions spread across edges with the given binary value only */
+    static FaceConnectivity edgeValue(boolean crossableValue) {
+        return new FaceConnectivity() {
+            public boolean crossesEdge(AbstractTriangleGrid grid, int x, int y, int edgeIndex) {
+                return grid.getEdgeValue(x, y, edgeIndex) == crossableValue;
+            }
+        };
+    }
+
+    /** Regions of faces accepted by the predicate, which is tested from several threads at once */
+    static FaceConnectivity faces(Predicate<TriangleFace> predicate) {
+        return new FaceConnectivity() {
+            public boolean includesFace(AbstractTriangleGrid grid, int x, int y, boolean pointing) {
+                return predicate.test(grid.getFace(x, y, pointing));
+            }
+        };
+    }
+
+    /** Regions spreading across edges accepted by the predicate */
+    static FaceConnectivity edges(Predicate<Edge> predicate) {
+        return new FaceConnectivity() {
+            public boolean crossesEdge(AbstractTriangleGrid grid, int x, int y, int edgeIndex) {
+                return predicate.test(grid.getEdge(x, y, edgeIndex));
+            }
+        };
+    }
+}
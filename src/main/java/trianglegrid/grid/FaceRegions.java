@@ -0,0 +1,232 @@
+package trianglegrid.grid;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/** Connected regions of faces, joined across shared edges as allowed by a FaceConnectivity.
+ *  Faces are indexed (y * gridWidth + x) * 2, plus 1 for pointy down. Flood fills are iterative over a bitset and
+ *  component labelling is a single union-find pass, with all buffers reused between calls. Not thread safe. */
+public class FaceRegions {
+    private final AbstractTriangleGrid grid;
+    private final int width;
+    private final int faceCount;
+    /** Faces reached by the last flood fill */
+    private final long[] filled;
+    private int[] stack = new int[1024];
+    private int filledCount;
+    /** Union-find parents while labelling, then -2 - label for included faces and -1 for the rest */
+    private int[] labels;
+    private int[] componentSizes = new int[0];
+    private int componentCount;
+
+    public FaceRegions(AbstractTriangleGrid grid) {
+        this.grid = grid;
+        width = grid.getWidth();
+        faceCount = Math.multiplyExact(Math.multiplyExact(width, grid.getHeight()), 2);
+        filled = new long[(faceCount + 63) >>> 6];
+    }
+
+    /** Fill the region containing the face owned by the node at (x, y), returning the number of faces filled.
+     *  Replaces the result of any previous fill. */
+    public int floodFill(int x, int y, boolean pointing, FaceConnectivity connectivity) {
+        Arrays.fill(filled, 0);
+        filledCount = 0;
+
+        if (!grid.hasFace(x, y, pointing) || !connectivity.includesFace(grid, x, y, pointing))
+            return 0;
+
+        int size = 0;
+        stack[size++] = faceIndex(x, y, pointing);
+        mark(stack[0]);
+
+        while (size > 0) {
+            int face = stack[--size];
+            int node = face >>> 1;
+            int faceX = node % width;
+            int faceY = node / width;
+            boolean facePointing = (face & 1) != 0;
+            int parity = faceY & 1;
+
+            for (int side = 0; side < 3; side++) {
+                int adjacentX, adjacentY, edgeX, edgeY;
+
+                //see FaceAdjacency, unrolled here as this is the hot loop
+                if (facePointing == TriangleFace.POINTY_UP) {
+                    adjacentX = side == 2 ? faceX : faceX + side - parity;
+                    adjacentY = side == 2 ? faceY - 2 : faceY - 1;
+                    edgeX = side == 2 ? faceX - parity : faceX;
+                    edgeY = side == 2 ? faceY - 1 : faceY;
+                } else {
+                    adjacentX = side == 2 ? faceX : faceX + 1 - side - parity;
+                    adjacentY = side == 2 ? faceY + 2 : faceY + 1;
+                    edgeX = side == 0 ? faceX + 1 - parity : faceX - parity;
+                    edgeY = faceY + 1;
+                }
+
+                if (!hasFace(adjacentX, adjacentY, !facePointing))
+                    continue;
+
+                int adjacent = faceIndex(adjacentX, adjacentY, !facePointing);
+
+                if (isMarked(adjacent)
+                        || !connectivity.crossesEdge(grid, edgeX, edgeY, side)
+                        || !connectivity.includesFace(grid, adjacentX, adjacentY, !facePointing))
+                    continue;
+
+                mark(adjacent);
+
+                if (size == stack.length)
+                    stack = Arrays.copyOf(stack, size * 2);
+
+                stack[size++] = adjacent;
+            }
+        }
+
+        return filledCount;
+    }
+
+    /** Whether the face was reached by the last flood fill */
+    public boolean isFilled(int x, int y, boolean pointing) {
+        return hasFace(x, y, pointing) && isMarked(faceIndex(x, y, pointing));
+    }
+
+    /** Number of faces reached by the last flood fill */
+    public int getFilledCount() {
+        return filledCount;
+    }
+
+    /** Label every region of the grid, returning the number of regions. Labels are numbered in row order from 0. */
+    public int labelComponents(FaceConnectivity connectivity) {
+        if (labels == null)
+            labels = new int[faceCount];
+
+        int height = grid.getHeight();
+
+        //includesFace only reads and grids allow concurrent reads (ChunkedTriangleGrid locks its chunk lookups), so rows are evaluated in parallel
+        IntStream.range(0, height).parallel().forEach(y -> {
+            for (int x = 0; x < width; x++) {
+                int flags = grid.getNodeFlags(x, y);
+                int face = faceIndex(x, y, TriangleFace.POINTY_UP);
+                labels[face] = (flags & AbstractTriangleGrid.FACE_UP) != 0
+                        && connectivity.includesFace(grid, x, y, TriangleFace.POINTY_UP) ? face : -1;
+                labels[face + 1] = (flags & AbstractTriangleGrid.FACE_DOWN) != 0
+                        && connectivity.includesFace(grid, x, y, TriangleFace.POINTY_DOWN) ? face + 1 : -1;
+            }
+        });
+
+        //every adjacent pair is one pointy up and one pointy down face, so joining each pointy up face to its 3 neighbours
+        //covers all. Pointy up faces only exist from row 1, where their neighbours on sides 0 and 1 always exist.
+        for (int y = 1; y < height; y++) {
+            int parity = y & 1;
+
+            for (int x = 0; x < width; x++) {
+                int face = faceIndex(x, y, TriangleFace.POINTY_UP);
+
+                if (labels[face] < 0)
+                    continue;
+
+                int left = faceIndex(x - parity, y - 1, TriangleFace.POINTY_DOWN);
+                int root = face;
+
+                if (labels[left] >= 0 && connectivity.crossesEdge(grid, x, y, 0))
+                    root = union(root, left);
+
+                if (labels[left + 2] >= 0 && connectivity.crossesEdge(grid, x, y, 1))
+                    root = union(root, left + 2);
+
+                if (y >= 2) {
+                    int above = faceIndex(x, y - 2, TriangleFace.POINTY_DOWN);
+
+                    if (labels[above] >= 0 && connectivity.crossesEdge(grid, x - parity, y - 1, 2))
+                        union(root, above);
+                }
+            }
+        }
+
+        //roots are the lowest face of their region and parents always precede children, so one ascending pass resolves labels
+        componentCount = 0;
+
+        for (int face = 0; face < faceCount; face++) {
+            int parent = labels[face];
+
+            if (parent == face) {
+                if (componentCount == componentSizes.length)
+                    componentSizes = Arrays.copyOf(componentSizes, Math.max(16, componentCount * 2));
+
+                componentSizes[componentCount] = 0;
+                labels[face] = -2 - componentCount++;
+            } else if (parent >= 0) {
+                labels[face] = labels[parent];
+            } else {
+                continue;
+            }
+
+            componentSizes[-2 - labels[face]]++;
+        }
+
+        return componentCount;
+    }
+
+    /** Region label of a face from the last labelComponents, -1 if the face was excluded or does not exist */
+    public int getLabel(int x, int y, boolean pointing) {
+        if (labels == null || !grid.hasFace(x, y, pointing))
+            return -1;
+
+        int label = labels[faceIndex(x, y, pointing)];
+        return label <= -2 ? -2 - label : -1;
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /** Number of faces with the given label */
+    public int getComponentSize(int label) {
+        return componentSizes[label];
+    }
+
+    public AbstractTriangleGrid getGrid() {
+        return grid;
+    }
+
+    private boolean hasFace(int x, int y, boolean pointing) {
+        int flag = pointing == TriangleFace.POINTY_UP ? AbstractTriangleGrid.FACE_UP : AbstractTriangleGrid.FACE_DOWN;
+        return x >= 0 && y >= 0 && x < width && y < grid.getHeight() && (grid.getNodeFlags(x, y) & flag) != 0;
+    }
+
+    private int faceIndex(int x, int y, boolean pointing) {
+        return GridState.faceIndex(y * width + x, pointing);
+    }
+
+    private void mark(int face) {
+        filled[face >>> 6] |= 1L << face;
+        filledCount++;
+    }
+
+    private boolean isMarked(int face) {
+        return (filled[face >>> 6] & (1L << face)) != 0;
+    }
+
+    /** Join the region of other to the region whose root is given, linking the higher root under the lower.
+     *  Returns the root of the joined region. */
+    private int union(int root, int other) {
+        int otherRoot = find(other);
+
+        if (root < otherRoot) {
+            labels[otherRoot] = root;
+            return root;
+        } else {
+            labels[root] = otherRoot;
+            return otherRoot;
+        }
+    }
+
+    private int find(int face) {
+        while (labels[face] != face) {
+            labels[face] = labels[labels[face]];
+            face = labels[face];
+        }
+
+        return face;
+    }
+}
@@ -0,0 +1,152 @@
+package trianglegrid.grid;
+
+import java.util.Arrays;
+
+/** Reusable buffer holding the element values of one square block of nodes, for streaming grids chunk by chunk.
+ *  Values are addressed by grid offset coordinates within the chunk. Chunks at the right and bottom border of the
+ *  grid are clipped to it. See GridChunkReader and GridChunkWriter. */
+public class GridChunk {
+    private final int chunkSize;
+    private int chunkX, chunkY;
+    private int originX, originY;
+    private int width, height;
+    /** Values indexed by local node (y - originY) * chunkSize + (x - originX), as GridState does for the whole grid */
+    final long[] edgeValues;
+    final byte[] vertexValues;
+    final byte[] faceValues;
+
+    public GridChunk(int chunkSize) {
+        if (chunkSize <= 0 || chunkSize > GridChunkWriter.MAX_CHUNK_SIZE)
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + GridChunkWriter.MAX_CHUNK_SIZE);
+
+        this.chunkSize = chunkSize;
+        int nodeCount = chunkSize * chunkSize;
+        edgeValues = new long[GridState.edgeWordCount(nodeCount)];
+        vertexValues = new byte[nodeCount];
+        faceValues = new byte[nodeCount * 2];
+    }
+
+    /** Position the chunk at chunk coordinate (chunkX, chunkY) of a grid, clearing its values */
+    public void reset(int chunkX, int chunkY, int gridWidth, int gridHeight) {
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+        originX = chunkX * chunkSize;
+        originY = chunkY * chunkSize;
+        width = Math.max(0, Math.min(chunkSize, gridWidth - originX));
+        height = Math.max(0, Math.min(chunkSize, gridHeight - originY));
+        Arrays.fill(edgeValues, 0);
+        Arrays.fill(vertexValues, (byte) 0);
+        Arrays.fill(faceValues, (byte) 0);
+    }
+
+    /** Position the chunk and fill it with the values of a grid. Edges that do not exist read as false. */
+    public void copyFrom(AbstractTriangleGrid grid, int chunkX, int chunkY) {
+        reset(chunkX, chunkY, grid.getWidth(), grid.getHeight());
+
+        for (int y = originY; y < originY + height; y++) {
+            for (int x = originX; x < originX + width; x++) {
+                int flags = grid.getNodeFlags(x, y);
+                setVertexValue(x, y, grid.getVertexValue(x, y));
+
+                for (int i = 0; i < 3; i++) {
+                    if ((flags & (AbstractTriangleGrid.EDGE_0 << i)) != 0)
+                        setEdgeValue(x, y, i, grid.getEdgeValue(x, y, i));
+                }
+
+                if ((flags & AbstractTriangleGrid.FACE_UP) != 0)
+                    setFaceValue(x, y, TriangleFace.POINTY_UP, grid.getFaceValue(x, y, TriangleFace.POINTY_UP));
+
+                if ((flags & AbstractTriangleGrid.FACE_DOWN) != 0)
+                    setFaceValue(x, y, TriangleFace.POINTY_DOWN, grid.getFaceValue(x, y, TriangleFace.POINTY_DOWN));
+            }
+        }
+    }
+
+    /** Write the chunk's values into the existing elements of a grid */
+    public void copyTo(AbstractTriangleGrid grid) {
+        int endX = Math.min(originX + width, grid.getWidth());
+        int endY = Math.min(originY + height, grid.getHeight());
+
+        for (int y = originY; y < endY; y++) {
+            for (int x = originX; x < endX; x++) {
+                int flags = grid.getNodeFlags(x, y);
+                grid.setVertexValue(x, y, getVertexValue(x, y));
+
+                for (int i = 0; i < 3; i++) {
+                    if ((flags & (AbstractTriangleGrid.EDGE_0 << i)) != 0)
+                        grid.setEdgeValue(x, y, i, getEdgeValue(x, y, i));
+                }
+
+                if ((flags & AbstractTriangleGrid.FACE_UP) != 0)
+                    grid.setFaceValue(x, y, TriangleFace.POINTY_UP, getFaceValue(x, y, TriangleFace.POINTY_UP));
+
+                if ((flags & AbstractTriangleGrid.FACE_DOWN) != 0)
+                    grid.setFaceValue(x, y, TriangleFace.POINTY_DOWN, getFaceValue(x, y, TriangleFace.POINTY_DOWN));
+            }
+        }
+    }
+
+    public boolean getEdgeValue(int x, int y, int edgeIndex) {
+        int bit = localNode(x, y) * 3 + edgeIndex;
+        return (edgeValues[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    public void setEdgeValue(int x, int y, int edgeIndex, boolean value) {
+        int bit = localNode(x, y) * 3 + edgeIndex;
+
+        if (value)
+            edgeValues[bit >>> 6] |= 1L << bit;
+        else
+            edgeValues[bit >>> 6] &= ~(1L << bit);
+    }
+
+    public int getVertexValue(int x, int y) {
+        return vertexValues[localNode(x, y)] & 0xFF;
+    }
+
+    public void setVertexValue(int x, int y, int value) {
+        vertexValues[localNode(x, y)] = (byte) value;
+    }
+
+    public int getFaceValue(int x, int y, boolean pointing) {
+        return faceValues[GridState.faceIndex(localNode(x, y), pointing)] & 0xFF;
+    }
+
+    public void setFaceValue(int x, int y, boolean pointing, int value) {
+        faceValues[GridState.faceIndex(localNode(x, y), pointing)] = (byte) value;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkX() {
+        return chunkX;
+    }
+
+    public int getChunkY() {
+        return chunkY;
+    }
+
+    /** Offset coordinate of the chunk's first node */
+    public int getOriginX() {
+        return originX;
+    }
+
+    public int getOriginY() {
+        return originY;
+    }
+
+    /** Number of columns and rows of nodes in the chunk after clipping to the grid */
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private int localNode(int x, int y) {
+        return (y - originY) * chunkSize + (x - originX);
+    }
+}
@@ -0,0 +1,171 @@
+package trianglegrid.grid;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/** Reads a chunk stream written by GridChunkWriter one GridChunk at a time, verifying checksums when present.
+ *  All buffers are sized to one chunk and reused. */
+public class GridChunkReader implements Closeable {
+    private final DataInputStream in;
+    private final int version, gridWidth, gridHeight, chunkSize, flags;
+    /** Number of chunks across and down the grid */
+    private final int chunkColumns, chunkRows;
+    private final byte[] raw;
+    private final byte[] stored;
+    private final Inflater inflater = new Inflater();
+    private final CRC32 crc = new CRC32();
+    private boolean finished;
+
+    public GridChunkReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+
+        if (this.in.readInt() != GridChunkWriter.MAGIC)
+            throw new IOException("Not a triangle grid chunk stream");
+
+        version = this.in.readInt();
+
+        if (version < 1 || version > GridChunkWriter.VERSION)
+            throw new IOException("Unsupported triangle grid chunk stream version " + version);
+
+        gridWidth = this.in.readInt();
+        gridHeight = this.in.readInt();
+        chunkSize = this.in.readInt();
+        flags = this.in.readInt();
+
+        if (gridWidth <= 0 || gridHeight <= 0 || chunkSize <= 0 || chunkSize > GridChunkWriter.MAX_CHUNK_SIZE)
+            throw new IOException("Invalid triangle grid chunk stream header");
+
+        chunkColumns = (gridWidth - 1) / chunkSize + 1;
+        chunkRows = (gridHeight - 1) / chunkSize + 1;
+
+        raw = new byte[GridChunkWriter.rawCapacity(chunkSize)];
+        stored = new byte[raw.length];
+    }
+
+    /** Read the next chunk into the given buffer, returning false at the end of the stream */
+    public boolean readChunk(GridChunk chunk) throws IOException {
+        if (chunk.getChunkSize() != chunkSize)
+            throw new IllegalArgumentException("Chunk size " + chunk.getChunkSize() + " does not match stream chunk size " + chunkSize);
+
+        if (finished)
+            return false;
+
+        int chunkX = in.readInt();
+
+        if (chunkX == -1) {
+            finished = true;
+            return false;
+        }
+
+        int chunkY = in.readInt();
+
+        if (chunkX < 0 || chunkX >= chunkColumns || chunkY < 0 || chunkY >= chunkRows)
+            throw new IOException("Chunk (" + chunkX + ", " + chunkY + ") outside the grid");
+
+        int encoding = in.readUnsignedByte();
+        int length = in.readInt();
+        int checksum = in.readInt();
+        chunk.reset(chunkX, chunkY, gridWidth, gridHeight);
+        int rawLength = chunk.getWidth() * chunk.getHeight();
+        rawLength = (rawLength * 3 + 7) / 8 + rawLength * 3;
+
+        if (length < 0 || length > raw.length)
+            throw new IOException("Corrupt chunk (" + chunkX + ", " + chunkY + ")");
+
+        if (encoding == GridChunkWriter.ENCODING_RAW) {
+            if (length != rawLength)
+                throw new IOException("Corrupt chunk (" + chunkX + ", " + chunkY + ")");
+
+            in.readFully(raw, 0, length);
+        } else if (encoding == GridChunkWriter.ENCODING_DEFLATE) {
+            in.readFully(stored, 0, length);
+            inflate(length, rawLength, chunkX, chunkY);
+        } else {
+            throw new IOException("Unknown chunk encoding " + encoding);
+        }
+
+        if ((flags & GridChunkWriter.CHECKSUM) != 0) {
+            crc.reset();
+
+            if (version >= 2)
+                GridChunkWriter.updateCoordinates(crc, chunkX, chunkY);
+
+            crc.update(raw, 0, rawLength);
+
+            if ((int) crc.getValue() != checksum)
+                throw new IOException("Checksum mismatch in chunk (" + chunkX + ", " + chunkY + ")");
+        }
+
+        decode(chunk);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    public int getWidth() {
+        return gridWidth;
+    }
+
+    public int getHeight() {
+        return gridHeight;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /** Header flags, see GridChunkWriter.COMPRESSED and GridChunkWriter.CHECKSUM */
+    public int getFlags() {
+        return flags;
+    }
+
+    private void inflate(int length, int rawLength, int chunkX, int chunkY) throws IOException {
+        inflater.reset();
+        inflater.setInput(stored, 0, length);
+
+        try {
+            if (inflater.inflate(raw, 0, rawLength) != rawLength || !inflater.finished())
+                throw new IOException("Corrupt chunk (" + chunkX + ", " + chunkY + ")");
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt chunk (" + chunkX + ", " + chunkY + ")", e);
+        }
+    }
+
+    /** Inverse of GridChunkWriter.encode */
+    private void decode(GridChunk chunk) {
+        int width = chunk.getWidth();
+        int height = chunk.getHeight();
+        int nodeCount = width * height;
+        int edgeBytes = (nodeCount * 3 + 7) / 8;
+        int node = 0;
+
+        for (int y = 0; y < height; y++) {
+            int local = y * chunkSize;
+
+            for (int x = 0; x < width; x++, node++, local++) {
+                for (int i = 0; i < 3; i++) {
+                    int packed = node * 3 + i;
+
+                    if ((raw[packed >>> 3] & (1 << (packed & 7))) != 0) {
+                        int bit = local * 3 + i;
+                        chunk.edgeValues[bit >>> 6] |= 1L << bit;
+                    }
+                }
+
+                chunk.vertexValues[local] = raw[edgeBytes + node];
+                chunk.faceValues[local * 2] = raw[edgeBytes + nodeCount + node * 2];
+                chunk.faceValues[local * 2 + 1] = raw[edgeBytes + nodeCount + node * 2 + 1];
+            }
+        }
+    }
+}
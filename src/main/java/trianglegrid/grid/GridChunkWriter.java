@@ -0,0 +1,179 @@
+package trianglegrid.grid;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/** Writes grid state to a stream one GridChunk at a time, so grids larger than memory can be exported or piped.
+ *  Stream layout, big endian:
+ *  header: magic, version, width, height, chunk size, flags (COMPRESSED, CHECKSUM),
+ *  chunk records: chunk x, chunk y, encoding byte (0 raw, 1 deflate), stored length, CRC32 of the chunk x, chunk y
+ *  and raw data or 0, data,
+ *  end marker: chunk x of -1, written by finish.
+ *  Raw chunk data covers the chunk's nodes in row order: edge values packed 3 bits per node, vertex values 1 byte per
+ *  node, then face values 2 bytes per node. Existence flags are not stored as they follow from the dimensions.
+ *  All buffers are sized to one chunk and reused. */
+public class GridChunkWriter implements Closeable {
+    /** "TGCS" */
+    public static final int MAGIC = 0x54474353;
+    /** Version 2 includes the chunk coordinates in the checksum, version 1 streams are still read */
+    public static final int VERSION = 2;
+    /** Header flags */
+    public static final int COMPRESSED = 1;
+    public static final int CHECKSUM = 1 << 1;
+    public static final int MAX_CHUNK_SIZE = 4096;
+    static final int ENCODING_RAW = 0;
+    static final int ENCODING_DEFLATE = 1;
+
+    private final DataOutputStream out;
+    private final int gridWidth, gridHeight, chunkSize, flags;
+    private final byte[] raw;
+    private final byte[] compressed;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private boolean closed;
+
+    public GridChunkWriter(OutputStream out, int gridWidth, int gridHeight, int chunkSize, int flags) throws IOException {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE)
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.chunkSize = chunkSize;
+        this.flags = flags;
+        raw = new byte[rawCapacity(chunkSize)];
+        //deflate adds at most 5 bytes per 16K stored block plus its header and trailer
+        compressed = new byte[raw.length + raw.length / 16000 * 5 + 64];
+        deflater = (flags & COMPRESSED) != 0 ? new Deflater(Deflater.BEST_SPEED) : null;
+
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+        this.out.writeInt(gridWidth);
+        this.out.writeInt(gridHeight);
+        this.out.writeInt(chunkSize);
+        this.out.writeInt(flags);
+    }
+
+    /** Append a chunk, which must have this writer's chunk size */
+    public void writeChunk(GridChunk chunk) throws IOException {
+        if (chunk.getChunkSize() != chunkSize)
+            throw new IllegalArgumentException("Chunk size " + chunk.getChunkSize() + " does not match stream chunk size " + chunkSize);
+
+        int length = encode(chunk, raw);
+        out.writeInt(chunk.getChunkX());
+        out.writeInt(chunk.getChunkY());
+
+        if (deflater != null) {
+            deflater.reset();
+            deflater.setInput(raw, 0, length);
+            deflater.finish();
+            int compressedLength = deflater.deflate(compressed);
+
+            //fall back to raw if deflate did not help
+            if (deflater.finished() && compressedLength < length) {
+                out.writeByte(ENCODING_DEFLATE);
+                out.writeInt(compressedLength);
+                out.writeInt(checksum(chunk, raw, length));
+                out.write(compressed, 0, compressedLength);
+                return;
+            }
+        }
+
+        out.writeByte(ENCODING_RAW);
+        out.writeInt(length);
+        out.writeInt(checksum(chunk, raw, length));
+        out.write(raw, 0, length);
+    }
+
+    /** Write the end marker after the last chunk. A stream closed without it reads as truncated. */
+    public void finish() throws IOException {
+        out.writeInt(-1);
+        out.flush();
+    }
+
+    /** Close the underlying stream */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+
+        closed = true;
+        out.close();
+
+        if (deflater != null)
+            deflater.end();
+    }
+
+    public int getWidth() {
+        return gridWidth;
+    }
+
+    public int getHeight() {
+        return gridHeight;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    private int checksum(GridChunk chunk, byte[] data, int length) {
+        if ((flags & CHECKSUM) == 0)
+            return 0;
+
+        crc.reset();
+        updateCoordinates(crc, chunk.getChunkX(), chunk.getChunkY());
+        crc.update(data, 0, length);
+        return (int) crc.getValue();
+    }
+
+    /** Add chunk coordinates to a checksum, big endian as they are written */
+    static void updateCoordinates(CRC32 crc, int chunkX, int chunkY) {
+        for (int shift = 24; shift >= 0; shift -= 8)
+            crc.update(chunkX >>> shift);
+        for (int shift = 24; shift >= 0; shift -= 8)
+            crc.update(chunkY >>> shift);
+    }
+
+    /** Bytes of raw data for a full chunk */
+    static int rawCapacity(int chunkSize) {
+        int nodeCount = chunkSize * chunkSize;
+        return (nodeCount * 3 + 7) / 8 + nodeCount * 3;
+    }
+
+    /** Serialise the chunk's nodes into the raw layout, returning the length */
+    static int encode(GridChunk chunk, byte[] raw) {
+        int width = chunk.getWidth();
+        int height = chunk.getHeight();
+        int nodeCount = width * height;
+        int edgeBytes = (nodeCount * 3 + 7) / 8;
+        Arrays.fill(raw, 0, edgeBytes, (byte) 0);
+        int node = 0;
+
+        for (int y = 0; y < height; y++) {
+            int local = y * chunk.getChunkSize();
+
+            for (int x = 0; x < width; x++, node++, local++) {
+                for (int i = 0; i < 3; i++) {
+                    int bit = local * 3 + i;
+
+                    if ((chunk.edgeValues[bit >>> 6] & (1L << bit)) != 0) {
+                        int packed = node * 3 + i;
+                        raw[packed >>> 3] |= (byte) (1 << (packed & 7));
+                    }
+                }
+
+                raw[edgeBytes + node] = chunk.vertexValues[local];
+                raw[edgeBytes + nodeCount + node * 2] = chunk.faceValues[local * 2];
+                raw[edgeBytes + nodeCount + node * 2 + 1] = chunk.faceValues[local * 2 + 1];
+            }
+        }
+
+        return edgeBytes + nodeCount * 3;
+    }
+}
@@ -1,6 +1,7 @@
 package trianglegrid.grid;
 
 import trianglegrid.coordinates.DirectedCoordinate;
+import trianglegrid.coordinates.PackedCoordinate;
 import trianglegrid.coordinates.TriangleCoordinate;
 import trianglegrid.coordinates.FractionalCoordinate;
 
@@ -22,7 +23,7 @@ public class GridGeometry {
     /** Offset to be applied to the x-axis on every other row */
     public final double oddRowOffset;
 
-    public GridGeometry(int edgeLength){
+    public GridGeometry(double edgeLength){
         hexagon = new GridGeometry.Hexagon(edgeLength);
         pointyUpTriangle = hexagon.createTriangle(0);
         pointyDownTriangle = hexagon.createTriangle(3);
@@ -47,8 +48,20 @@ public class GridGeometry {
         return b * rowSpacing;
     }
 
+    /** Screen x position of the vertex at offset coordinate (x, y), odd rows are shifted by half a column */
+    public double offsetToScreenX(int x, int y)
+    {
+        return x * columnSpacing - (y & 1) * oddRowOffset;
+    }
+
+    /** Screen y position of the vertices in offset row y */
+    public double offsetToScreenY(int y)
+    {
+        return y * rowSpacing;
+    }
+
     /** Create a FractionalTriangleCoordinate coordinate from screen coordinates */
-    public FractionalCoordinate screenToGridCoordinate(int screenX, int screenY) {
+    public FractionalCoordinate screenToGridCoordinate(double screenX, double screenY) {
         double gridB = screenY / rowSpacing;
         double gridA = (screenX - (gridB * oddRowOffset)) / columnSpacing;
 
@@ -122,6 +135,123 @@ public class GridGeometry {
             return new DirectedCoordinate(flooredCoordinate.getNeighbour(2), 4);
     }
 
+    /** Classify a screen point as the vertex within vertexRadius pixels, else the edge within edgeWidth pixels, else the
+     *  face it falls in, as nearestVertexDistance, nearestEdgeDistance and getFaceCoordinate do. Does not allocate. */
+    public void pick(double screenX, double screenY, double vertexRadius, double edgeWidth, PickResult result) {
+        double gridB = screenY / rowSpacing;
+        double gridA = (screenX - (gridB * oddRowOffset)) / columnSpacing;
+        result.gridA = gridA;
+        result.gridB = gridB;
+        long nearestVertex = nearestVertex(gridA, gridB, (int) Math.floor(gridA + 0.5), (int) Math.floor(gridB + 0.5));
+        int roundedA = PackedCoordinate.getA(nearestVertex);
+        int roundedB = PackedCoordinate.getB(nearestVertex);
+        result.type = classify(gridA - roundedA, gridB - roundedB, vertexRadius, edgeWidth);
+
+        if (result.type == PickResult.FACE) {
+            double flooredA = Math.floor(gridA);
+            double flooredB = Math.floor(gridB);
+            boolean pointyDown = 1 - (gridA - flooredA) > gridB - flooredB;
+            result.a = (int) flooredA + (pointyDown ? 0 : 1);
+            result.b = (int) flooredB;
+            result.direction = pointyDown ? 3 : 4;
+        } else {
+            result.a = roundedA;
+            result.b = roundedB;
+            result.direction = result.type == PickResult.EDGE ? edgeDirection(gridA - roundedA, gridB - roundedB) : -1;
+        }
+    }
+
+    /** Pick count screen points at once into results, see pick(double, double, double, double, PickResult).
+     *  The conversion to grid coordinates is a straight line pass over the arrays that the JIT can vectorise,
+     *  classification follows in a second pass. */
+    public void pick(double[] screenX, double[] screenY, int count, double vertexRadius, double edgeWidth, PickResults results) {
+        results.ensureCapacity(count);
+        double[] gridA = results.gridA;
+        double[] gridB = results.gridB;
+        int[] a = results.a;
+        int[] b = results.b;
+        byte[] types = results.types;
+        byte[] directions = results.directions;
+
+        for (int i = 0; i < count; i++) {
+            double fractionalB = screenY[i] / rowSpacing;
+            double fractionalA = (screenX[i] - fractionalB * oddRowOffset) / columnSpacing;
+            gridA[i] = fractionalA;
+            gridB[i] = fractionalB;
+            a[i] = (int) Math.floor(fractionalA + 0.5);
+            b[i] = (int) Math.floor(fractionalB + 0.5);
+        }
+
+        for (int i = 0; i < count; i++) {
+            double fractionalA = gridA[i];
+            double fractionalB = gridB[i];
+            long nearestVertex = nearestVertex(fractionalA, fractionalB, a[i], b[i]);
+            int roundedA = PackedCoordinate.getA(nearestVertex);
+            int roundedB = PackedCoordinate.getB(nearestVertex);
+            int type = classify(fractionalA - roundedA, fractionalB - roundedB, vertexRadius, edgeWidth);
+            types[i] = (byte) type;
+
+            if (type == PickResult.FACE) {
+                double flooredA = Math.floor(fractionalA);
+                double flooredB = Math.floor(fractionalB);
+                boolean pointyDown = 1 - (fractionalA - flooredA) > fractionalB - flooredB;
+                a[i] = (int) flooredA + (pointyDown ? 0 : 1);
+                b[i] = (int) flooredB;
+                directions[i] = (byte) (pointyDown ? 3 : 4);
+            } else {
+                a[i] = roundedA;
+                b[i] = roundedB;
+                directions[i] = (byte) (type == PickResult.EDGE ? edgeDirection(fractionalA - roundedA, fractionalB - roundedB) : -1);
+            }
+        }
+    }
+
+    /** Nearest vertex as a packed coordinate given the grid coordinate and its rounded a and b,
+     *  see FractionalCoordinate.roundedTriangleCoordinate */
+    private static long nearestVertex(double gridA, double gridB, int roundedA, int roundedB) {
+        double gridC = -gridA - gridB;
+        int roundedC = (int) Math.floor(gridC + 0.5);
+        double diffA = Math.abs(gridA - roundedA);
+        double diffB = Math.abs(gridB - roundedB);
+        double diffC = Math.abs(gridC - roundedC);
+
+        if (diffA > diffB && diffA > diffC)
+            roundedA = -roundedB - roundedC;
+        else if (diffB > diffA && diffB > diffC)
+            roundedB = -roundedA - roundedC;
+
+        return PackedCoordinate.pack(roundedA, roundedB);
+    }
+
+    /** Type of element picked given the grid offset from the nearest vertex */
+    private int classify(double offsetA, double offsetB, double vertexRadius, double edgeWidth) {
+        double distanceX = gridToScreenX(offsetA, offsetB);
+        double distanceY = gridToScreenY(offsetB);
+
+        if (distanceX * distanceX + distanceY * distanceY < vertexRadius * vertexRadius)
+            return PickResult.VERTEX;
+
+        double edgeDistance = Math.min(Math.abs(offsetA * columnSpacing),
+                Math.min(Math.abs(offsetB * rowSpacing), Math.abs((-offsetA - offsetB) * columnSpacing)));
+        return edgeDistance < edgeWidth ? PickResult.EDGE : PickResult.FACE;
+    }
+
+    /** Edge direction from the nearest vertex given the grid offset from it, see nearestEdgeCoordinate */
+    private int edgeDirection(double offsetA, double offsetB) {
+        double aDist = offsetA * columnSpacing;
+        double bDist = offsetB * rowSpacing;
+        double aDistAbs = Math.abs(aDist);
+        double bDistAbs = Math.abs(bDist);
+        double cDistAbs = Math.abs((-offsetA - offsetB) * columnSpacing);
+
+        if (aDistAbs < bDistAbs && aDistAbs < cDistAbs)
+            return bDist < 0 ? 0 : 3;
+        else if (bDistAbs < aDistAbs && bDistAbs < cDistAbs)
+            return aDist < 0 ? 5 : 2;
+        else
+            return bDist < 0 ? 1 : 4;
+    }
+
     /** All calculations of a triangle grid can be derived from a hexagon */
     public static class Hexagon {
         /** Cache root 3 */
@@ -0,0 +1,305 @@
+package trianglegrid.grid;
+
+import trianglegrid.coordinates.PackedCoordinate;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/** Records changes made to a grid as (packed coordinate, GridSlot, value) deltas.
+ *  Changes made through the journal are applied to the grid and appended to a pending log, which flush writes as a
+ *  compact batch for saving or syncing and replay applies elsewhere. Changes are also grouped for undo and redo,
+ *  a group ending at each commit. Changes made to the grid directly are not recorded. Not thread safe.
+ *  Flushed batch layout, big endian: delta count, then per delta the packed coordinate, slot byte and value byte. */
+public class GridJournal {
+    /** Bytes written per delta by flush */
+    public static final int DELTA_BYTES = 10;
+
+    private final AbstractTriangleGrid grid;
+
+    /** Deltas applied since the last flush */
+    private long[] pendingCoordinates = new long[64];
+    private byte[] pendingSlots = new byte[64];
+    private byte[] pendingValues = new byte[64];
+    private int pendingCount;
+
+    /** Undo history: each change with its previous and new value, split into groups */
+    private long[] historyCoordinates = new long[64];
+    private byte[] historySlots = new byte[64];
+    private byte[] historyOldValues = new byte[64];
+    private byte[] historyNewValues = new byte[64];
+    private int historySize;
+    /** End of each committed group in the history */
+    private int[] groupEnds = new int[16];
+    private int groupCount;
+    /** Groups currently applied, those after it have been undone and can be redone */
+    private int appliedGroups;
+
+    public GridJournal(AbstractTriangleGrid grid) {
+        this.grid = grid;
+    }
+
+    /** Set the value of the element at a GridSlot of the node at a packed coordinate, recording the change.
+     *  Throws IllegalArgumentException if the node has no element at that slot. */
+    public void set(long coordinate, int slot, int value) {
+        int x = PackedCoordinate.getX(coordinate);
+        int y = PackedCoordinate.getY(coordinate);
+
+        if (slot < 0 || slot >= GridSlot.SLOT_COUNT || !grid.hasSlot(x, y, slot))
+            throw new IllegalArgumentException("No element at slot " + slot + " of node (" + x + ", " + y + ")");
+
+        value = GridSlot.isEdge(slot) ? (value != 0 ? 1 : 0) : value & 0xFF;
+        int previous = grid.getValue(x, y, slot);
+
+        if (previous == value)
+            return;
+
+        //a new change discards anything that could have been redone
+        if (appliedGroups < groupCount) {
+            historySize = appliedEnd();
+            groupCount = appliedGroups;
+        }
+
+        if (historySize == historyCoordinates.length) {
+            historyCoordinates = Arrays.copyOf(historyCoordinates, historySize * 2);
+            historySlots = Arrays.copyOf(historySlots, historySize * 2);
+            historyOldValues = Arrays.copyOf(historyOldValues, historySize * 2);
+            historyNewValues = Arrays.copyOf(historyNewValues, historySize * 2);
+        }
+
+        historyCoordinates[historySize] = coordinate;
+        historySlots[historySize] = (byte) slot;
+        historyOldValues[historySize] = (byte) previous;
+        historyNewValues[historySize] = (byte) value;
+        historySize++;
+        apply(coordinate, x, y, slot, value);
+    }
+
+    /** Set the value of the element at a GridSlot of the node at offset coordinate (x, y), recording the change */
+    public void set(int x, int y, int slot, int value) {
+        set(PackedCoordinate.fromOffsetCoordinate(x, y), slot, value);
+    }
+
+    public void setEdgeValue(int x, int y, int edgeIndex, boolean value) {
+        set(x, y, GridSlot.edge(edgeIndex), value ? 1 : 0);
+    }
+
+    public void setVertexValue(int x, int y, int value) {
+        set(x, y, GridSlot.VERTEX, value);
+    }
+
+    public void setFaceValue(int x, int y, boolean pointing, int value) {
+        set(x, y, GridSlot.face(pointing), value);
+    }
+
+    /** End the current group of changes, so the next undo reverts exactly these */
+    public void commit() {
+        if (hasOpenGroup()) {
+            if (groupCount == groupEnds.length)
+                groupEnds = Arrays.copyOf(groupEnds, groupCount * 2);
+
+            groupEnds[groupCount++] = historySize;
+            appliedGroups = groupCount;
+        }
+    }
+
+    /** Revert the last group of changes, committing any open group first. Returns false if there is nothing to undo. */
+    public boolean undo() {
+        commit();
+
+        if (appliedGroups == 0)
+            return false;
+
+        appliedGroups--;
+
+        for (int i = groupEnds[appliedGroups] - 1; i >= groupStart(appliedGroups); i--)
+            apply(historyCoordinates[i], historySlots[i], historyOldValues[i] & 0xFF);
+
+        return true;
+    }
+
+    /** Reapply the last undone group of changes. Returns false if there is nothing to redo. */
+    public boolean redo() {
+        if (appliedGroups == groupCount)
+            return false;
+
+        for (int i = groupStart(appliedGroups); i < groupEnds[appliedGroups]; i++)
+            apply(historyCoordinates[i], historySlots[i], historyNewValues[i] & 0xFF);
+
+        appliedGroups++;
+        return true;
+    }
+
+    public boolean canUndo() {
+        return appliedGroups > 0 || hasOpenGroup();
+    }
+
+    public boolean canRedo() {
+        return appliedGroups < groupCount;
+    }
+
+    /** Forget undo and redo history, keeping pending deltas */
+    public void clearHistory() {
+        historySize = 0;
+        groupCount = 0;
+        appliedGroups = 0;
+    }
+
+    /** Number of deltas applied since the last flush */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /** Drop pending deltas overwritten by a later delta to the same element */
+    public void compact() {
+        //open addressing table of kept deltas, holding position + 1 with 0 for empty, at most half full
+        int[] table = new int[Integer.highestOneBit(Math.max(1, pendingCount)) * 4];
+        int mask = table.length - 1;
+        int kept = pendingCount;
+
+        //walk backwards so the latest delta to each element is the one kept, then close the gaps towards the end.
+        //kept deltas are only ever written below the ones already kept, so positions in the table stay valid
+        for (int i = pendingCount - 1; i >= 0; i--) {
+            long coordinate = pendingCoordinates[i];
+            byte slot = pendingSlots[i];
+            int index = GridOverlay.hash(coordinate, slot) & mask;
+            boolean seen = false;
+
+            for (; table[index] != 0; index = (index + 1) & mask) {
+                int position = table[index] - 1;
+
+                if (pendingCoordinates[position] == coordinate && pendingSlots[position] == slot) {
+                    seen = true;
+                    break;
+                }
+            }
+
+            if (seen)
+                continue;
+
+            kept--;
+            table[index] = kept + 1;
+            pendingCoordinates[kept] = coordinate;
+            pendingSlots[kept] = slot;
+            pendingValues[kept] = pendingValues[i];
+        }
+
+        int remaining = pendingCount - kept;
+        System.arraycopy(pendingCoordinates, kept, pendingCoordinates, 0, remaining);
+        System.arraycopy(pendingSlots, kept, pendingSlots, 0, remaining);
+        System.arraycopy(pendingValues, kept, pendingValues, 0, remaining);
+        pendingCount = remaining;
+    }
+
+    /** Write pending deltas as one batch and clear them, returning the number of deltas written.
+     *  The stream is flushed but not closed. */
+    public int flush(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        byte[] batch = new byte[pendingCount * DELTA_BYTES];
+
+        for (int i = 0; i < pendingCount; i++) {
+            long coordinate = pendingCoordinates[i];
+            int offset = i * DELTA_BYTES;
+
+            for (int b = 0; b < 8; b++)
+                batch[offset + b] = (byte) (coordinate >>> (56 - b * 8));
+
+            batch[offset + 8] = pendingSlots[i];
+            batch[offset + 9] = pendingValues[i];
+        }
+
+        data.writeInt(pendingCount);
+        data.write(batch);
+        data.flush();
+        int written = pendingCount;
+        pendingCount = 0;
+        return written;
+    }
+
+    /** Write the whole grid as a snapshot file, see TriangleGridFile, and clear the pending deltas it now contains */
+    public void snapshot(Path path) throws IOException {
+        TriangleGridFile.write(grid, path);
+        pendingCount = 0;
+    }
+
+    /** Apply every batch in a stream of flushed deltas to a grid until the end of the stream,
+     *  returning the number of deltas applied. Closes the stream.
+     *  Throws IOException on a delta for an element the grid does not have, leaving earlier deltas applied. */
+    public static int replay(InputStream in, AbstractTriangleGrid grid) throws IOException {
+        int applied = 0;
+
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(in))) {
+            while (true) {
+                int count;
+
+                try {
+                    count = data.readInt();
+                } catch (EOFException e) {
+                    return applied;
+                }
+
+                for (int i = 0; i < count; i++) {
+                    long coordinate = data.readLong();
+                    int slot = data.readUnsignedByte();
+                    int value = data.readUnsignedByte();
+
+                    int x = PackedCoordinate.getX(coordinate);
+                    int y = PackedCoordinate.getY(coordinate);
+
+                    if (slot >= GridSlot.SLOT_COUNT)
+                        throw new IOException("Invalid slot " + slot + " in journal");
+                    if (!grid.hasSlot(x, y, slot))
+                        throw new IOException("Journal delta for missing element at slot " + slot + " of node (" + x + ", " + y + ")");
+
+                    grid.setValue(x, y, slot, value);
+                    applied++;
+                }
+            }
+        }
+    }
+
+    public AbstractTriangleGrid getGrid() {
+        return grid;
+    }
+
+    private void apply(long coordinate, int slot, int value) {
+        apply(coordinate, PackedCoordinate.getX(coordinate), PackedCoordinate.getY(coordinate), slot, value);
+    }
+
+    /** Set a value on the grid and append it to the pending log */
+    private void apply(long coordinate, int x, int y, int slot, int value) {
+        grid.setValue(x, y, slot, value);
+
+        if (pendingCount == pendingCoordinates.length) {
+            pendingCoordinates = Arrays.copyOf(pendingCoordinates, pendingCount * 2);
+            pendingSlots = Arrays.copyOf(pendingSlots, pendingCount * 2);
+            pendingValues = Arrays.copyOf(pendingValues, pendingCount * 2);
+        }
+
+        pendingCoordinates[pendingCount] = coordinate;
+        pendingSlots[pendingCount] = (byte) slot;
+        pendingValues[pendingCount] = (byte) value;
+        pendingCount++;
+    }
+
+    private int groupStart(int group) {
+        return group == 0 ? 0 : groupEnds[group - 1];
+    }
+
+    /** Whether changes have been made since the last commit. Making a change discards undone groups, so an open group
+     *  only exists while every group is applied. */
+    private boolean hasOpenGroup() {
+        return appliedGroups == groupCount && historySize > appliedEnd();
+    }
+
+    /** End of the applied groups in the history, where the open group starts */
+    private int appliedEnd() {
+        return appliedGroups == 0 ? 0 : groupEnds[appliedGroups - 1];
+    }
+}
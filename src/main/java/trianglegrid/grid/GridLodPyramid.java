@@ -0,0 +1,224 @@
+package trianglegrid.grid;
+
+import java.util.stream.IntStream;
+
+/** Pyramid of aggregated summaries of a grid for drawing it zoomed out.
+ *  Level 0 cells summarise BASE_CELL_SIZE x BASE_CELL_SIZE nodes and each level above merges 2 x 2 cells of the one below,
+ *  up to a single cell covering the grid. Every cell holds the number of edges, set edges, faces and vertices within it
+ *  and the sums of their values, so summaries are exact at every level.
+ *  The pyramid does not observe the grid, changed nodes must be reported with update or the pyramid rebuilt. */
+public class GridLodPyramid {
+    public static final int BASE_SHIFT = 3;
+    public static final int BASE_CELL_SIZE = 1 << BASE_SHIFT;
+
+    private final AbstractTriangleGrid grid;
+    private final Level[] levels;
+
+    public GridLodPyramid(AbstractTriangleGrid grid) {
+        this.grid = grid;
+
+        int levelCount = 1;
+        int columns = (grid.getWidth() + BASE_CELL_SIZE - 1) >>> BASE_SHIFT;
+        int rows = (grid.getHeight() + BASE_CELL_SIZE - 1) >>> BASE_SHIFT;
+
+        while (columns > 1 || rows > 1) {
+            columns = (columns + 1) >>> 1;
+            rows = (rows + 1) >>> 1;
+            levelCount++;
+        }
+
+        levels = new Level[levelCount];
+        columns = (grid.getWidth() + BASE_CELL_SIZE - 1) >>> BASE_SHIFT;
+        rows = (grid.getHeight() + BASE_CELL_SIZE - 1) >>> BASE_SHIFT;
+
+        for (int level = 0; level < levelCount; level++) {
+            levels[level] = new Level(BASE_SHIFT + level, columns, rows);
+            columns = (columns + 1) >>> 1;
+            rows = (rows + 1) >>> 1;
+        }
+
+        rebuild();
+    }
+
+    /** Recompute every level from the grid, reading rows of cells in parallel. The grid must not be written meanwhile. */
+    public void rebuild() {
+        Level base = levels[0];
+        IntStream.range(0, base.rows).parallel().forEach(cellY -> {
+            for (int cellX = 0; cellX < base.columns; cellX++)
+                summariseNodes(cellX, cellY);
+        });
+
+        for (int level = 1; level < levels.length; level++) {
+            Level current = levels[level];
+            Level below = levels[level - 1];
+            IntStream.range(0, current.rows).parallel().forEach(cellY -> {
+                for (int cellX = 0; cellX < current.columns; cellX++)
+                    current.merge(below, cellX, cellY);
+            });
+        }
+    }
+
+    /** Recompute the cells containing the node at offset coordinate (x, y) after any of its values changed */
+    public void update(int x, int y) {
+        int cellX = x >>> BASE_SHIFT;
+        int cellY = y >>> BASE_SHIFT;
+        summariseNodes(cellX, cellY);
+
+        for (int level = 1; level < levels.length; level++) {
+            cellX >>>= 1;
+            cellY >>>= 1;
+            levels[level].merge(levels[level - 1], cellX, cellY);
+        }
+    }
+
+    /** Sum the nodes of a level 0 cell */
+    private void summariseNodes(int cellX, int cellY) {
+        Level base = levels[0];
+        int index = cellY * base.columns + cellX;
+        int minX = cellX << BASE_SHIFT;
+        int minY = cellY << BASE_SHIFT;
+        int maxX = Math.min(grid.getWidth(), minX + BASE_CELL_SIZE);
+        int maxY = Math.min(grid.getHeight(), minY + BASE_CELL_SIZE);
+        int edgeCount = 0, setEdgeCount = 0, faceCount = 0, vertexCount = 0;
+        long faceValueSum = 0, vertexValueSum = 0;
+
+        for (int y = minY; y < maxY; y++) {
+            for (int x = minX; x < maxX; x++) {
+                vertexCount++;
+                vertexValueSum += grid.getVertexValue(x, y);
+
+                for (int edgeIndex = 0; edgeIndex < 3; edgeIndex++) {
+                    if (grid.hasEdge(x, y, edgeIndex)) {
+                        edgeCount++;
+
+                        if (grid.getEdgeValue(x, y, edgeIndex))
+                            setEdgeCount++;
+                    }
+                }
+
+                if (grid.hasFace(x, y, TriangleFace.POINTY_UP)) {
+                    faceCount++;
+                    faceValueSum += grid.getFaceValue(x, y, TriangleFace.POINTY_UP);
+                }
+                if (grid.hasFace(x, y, TriangleFace.POINTY_DOWN)) {
+                    faceCount++;
+                    faceValueSum += grid.getFaceValue(x, y, TriangleFace.POINTY_DOWN);
+                }
+            }
+        }
+
+        base.edgeCounts[index] = edgeCount;
+        base.setEdgeCounts[index] = setEdgeCount;
+        base.faceCounts[index] = faceCount;
+        base.vertexCounts[index] = vertexCount;
+        base.faceValueSums[index] = faceValueSum;
+        base.vertexValueSums[index] = vertexValueSum;
+    }
+
+    public AbstractTriangleGrid getGrid() {
+        return grid;
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /** Lowest level whose cells are at least the given number of nodes across, or the top level if none are */
+    public int getLevel(double minimumCellSize) {
+        for (int level = 0; level < levels.length; level++) {
+            if (getCellSize(level) >= minimumCellSize)
+                return level;
+        }
+
+        return levels.length - 1;
+    }
+
+    /** Width and height in nodes of the cells of a level */
+    public int getCellSize(int level) {
+        return 1 << levels[level].shift;
+    }
+
+    public int getColumns(int level) {
+        return levels[level].columns;
+    }
+
+    public int getRows(int level) {
+        return levels[level].rows;
+    }
+
+    /** Fraction (0 - 1) of the edges in a cell that are set */
+    public double getEdgeDensity(int level, int cellX, int cellY) {
+        Level current = levels[level];
+        int index = cellY * current.columns + cellX;
+        int edgeCount = current.edgeCounts[index];
+        return edgeCount == 0 ? 0 : (double) current.setEdgeCounts[index] / edgeCount;
+    }
+
+    /** Mean value (0 - 255) of the faces in a cell */
+    public int getMeanFaceValue(int level, int cellX, int cellY) {
+        Level current = levels[level];
+        int index = cellY * current.columns + cellX;
+        int faceCount = current.faceCounts[index];
+        return faceCount == 0 ? 0 : (int) (current.faceValueSums[index] / faceCount);
+    }
+
+    /** Mean value (0 - 255) of the vertices in a cell */
+    public int getMeanVertexValue(int level, int cellX, int cellY) {
+        Level current = levels[level];
+        int index = cellY * current.columns + cellX;
+        int vertexCount = current.vertexCounts[index];
+        return vertexCount == 0 ? 0 : (int) (current.vertexValueSums[index] / vertexCount);
+    }
+
+    /** Column arrays of the summaries of one level, indexed by cellY * columns + cellX */
+    private static class Level {
+        final int shift;
+        final int columns;
+        final int rows;
+        final int[] edgeCounts;
+        final int[] setEdgeCounts;
+        final int[] faceCounts;
+        final int[] vertexCounts;
+        final long[] faceValueSums;
+        final long[] vertexValueSums;
+
+        Level(int shift, int columns, int rows) {
+            this.shift = shift;
+            this.columns = columns;
+            this.rows = rows;
+            int cellCount = columns * rows;
+            edgeCounts = new int[cellCount];
+            setEdgeCounts = new int[cellCount];
+            faceCounts = new int[cellCount];
+            vertexCounts = new int[cellCount];
+            faceValueSums = new long[cellCount];
+            vertexValueSums = new long[cellCount];
+        }
+
+        /** Set a cell to the sum of the up to 2 x 2 cells beneath it */
+        void merge(Level below, int cellX, int cellY) {
+            int index = cellY * columns + cellX;
+            int edgeCount = 0, setEdgeCount = 0, faceCount = 0, vertexCount = 0;
+            long faceValueSum = 0, vertexValueSum = 0;
+
+            for (int belowY = cellY << 1; belowY < Math.min(below.rows, (cellY << 1) + 2); belowY++) {
+                for (int belowX = cellX << 1; belowX < Math.min(below.columns, (cellX << 1) + 2); belowX++) {
+                    int belowIndex = belowY * below.columns + belowX;
+                    edgeCount += below.edgeCounts[belowIndex];
+                    setEdgeCount += below.setEdgeCounts[belowIndex];
+                    faceCount += below.faceCounts[belowIndex];
+                    vertexCount += below.vertexCounts[belowIndex];
+                    faceValueSum += below.faceValueSums[belowIndex];
+                    vertexValueSum += below.vertexValueSums[belowIndex];
+                }
+            }
+
+            edgeCounts[index] = edgeCount;
+            setEdgeCounts[index] = setEdgeCount;
+            faceCounts[index] = faceCount;
+            vertexCounts[index] = vertexCount;
+            faceValueSums[index] = faceValueSum;
+            vertexValueSums[index] = vertexValueSum;
+        }
+    }
+}
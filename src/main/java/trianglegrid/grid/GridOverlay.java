@@ -0,0 +1,304 @@
+package trianglegrid.grid;
+
+import trianglegrid.coordinates.PackedCoordinate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/** Sparse store of objects attached to grid elements, keyed by the packed coordinate of the owning node and a GridSlot.
+ *  Lookups go through an open addressing hash table of primitive keys. Entries are also grouped into CHUNK_SIZE x
+ *  CHUNK_SIZE blocks of offset coordinates so region queries only touch the blocks they overlap.
+ *  Null values are not stored. Not thread safe. */
+public class GridOverlay<T> {
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    /** Hash table columns, a slot is empty when its value is null */
+    private long[] coordinates = new long[16];
+    private byte[] slots = new byte[16];
+    private Object[] values = new Object[16];
+    /** Position of each entry in its chunk's entry arrays */
+    private int[] chunkPositions = new int[16];
+    private int size;
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+    private long lastChunkKey = -1;
+    private Chunk lastChunk;
+
+    /** Object attached to the element at the given slot of the node at a packed coordinate, null if none */
+    @SuppressWarnings("unchecked")
+    public T get(long coordinate, int slot) {
+        int index = find(coordinate, slot);
+        return index < 0 ? null : (T) values[index];
+    }
+
+    /** Object attached to the element at the given slot of the node at offset coordinate (x, y), null if none */
+    public T get(int x, int y, int slot) {
+        return get(PackedCoordinate.fromOffsetCoordinate(x, y), slot);
+    }
+
+    public boolean contains(long coordinate, int slot) {
+        return find(coordinate, slot) >= 0;
+    }
+
+    /** Attach an object to an element, returning the object it replaces. A null value removes the entry. */
+    @SuppressWarnings("unchecked")
+    public T put(long coordinate, int slot, T value) {
+        if (value == null)
+            return remove(coordinate, slot);
+
+        int index = find(coordinate, slot);
+
+        if (index >= 0) {
+            T previous = (T) values[index];
+            values[index] = value;
+            getChunk(coordinate, false).values[chunkPositions[index]] = value;
+            return previous;
+        }
+
+        if ((size + 1) * 4 > values.length * 3)
+            resize(values.length * 2);
+
+        index = probe(coordinate, slot);
+        coordinates[index] = coordinate;
+        slots[index] = (byte) slot;
+        values[index] = value;
+        chunkPositions[index] = getChunk(coordinate, true).add(coordinate, slot, value);
+        size++;
+        return null;
+    }
+
+    /** Attach an object to the element at the given slot of the node at offset coordinate (x, y) */
+    public T put(int x, int y, int slot, T value) {
+        return put(PackedCoordinate.fromOffsetCoordinate(x, y), slot, value);
+    }
+
+    /** Detach the object from an element, returning it or null if there was none */
+    @SuppressWarnings("unchecked")
+    public T remove(long coordinate, int slot) {
+        int index = find(coordinate, slot);
+
+        if (index < 0)
+            return null;
+
+        T previous = (T) values[index];
+        Chunk chunk = getChunk(coordinate, false);
+        int moved = chunk.removeAt(chunkPositions[index]);
+
+        //the chunk's last entry filled the gap, point its table entry at the new position
+        if (moved >= 0)
+            chunkPositions[find(chunk.coordinates[moved], chunk.slots[moved])] = moved;
+
+        if (chunk.size == 0)
+            removeChunk(coordinate);
+
+        deleteAt(index);
+        size--;
+        return previous;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        chunks.clear();
+        lastChunk = null;
+        lastChunkKey = -1;
+        size = 0;
+    }
+
+    /** Visit every object, in no particular order */
+    @SuppressWarnings("unchecked")
+    public void forEach(OverlayVisitor<? super T> visitor) {
+        for (Chunk chunk : chunks.values())
+            for (int i = 0; i < chunk.size; i++)
+                visitor.visit(chunk.coordinates[i], chunk.slots[i], (T) chunk.values[i]);
+    }
+
+    /** Visit the objects attached to elements owned by nodes in the region, in no particular order */
+    @SuppressWarnings("unchecked")
+    public void forEachInRegion(GridRegion region, OverlayVisitor<? super T> visitor) {
+        if (chunks.isEmpty())
+            return;
+
+        int minChunkY = region.getMinRow() >> CHUNK_SHIFT;
+        int maxChunkY = region.getMaxRow() >> CHUNK_SHIFT;
+
+        for (int chunkY = minChunkY; chunkY <= maxChunkY; chunkY++) {
+            //column extent of the region within this band of rows
+            int minX = Integer.MAX_VALUE;
+            int maxX = Integer.MIN_VALUE;
+            int startRow = Math.max(region.getMinRow(), chunkY << CHUNK_SHIFT);
+            int endRow = Math.min(region.getMaxRow(), (chunkY << CHUNK_SHIFT) + CHUNK_SIZE - 1);
+
+            for (int y = startRow; y <= endRow; y++) {
+                int spanCount = region.getSpanCount(y);
+
+                if (spanCount > 0) {
+                    minX = Math.min(minX, region.getSpanStart(y, 0));
+                    maxX = Math.max(maxX, region.getSpanEnd(y, spanCount - 1));
+                }
+            }
+
+            if (minX > maxX)
+                continue;
+
+            for (int chunkX = minX >> CHUNK_SHIFT; chunkX <= maxX >> CHUNK_SHIFT; chunkX++) {
+                Chunk chunk = chunks.get(chunkKey(chunkX, chunkY));
+
+                if (chunk == null)
+                    continue;
+
+                for (int i = 0; i < chunk.size; i++) {
+                    long coordinate = chunk.coordinates[i];
+
+                    if (region.contains(PackedCoordinate.getX(coordinate), PackedCoordinate.getY(coordinate)))
+                        visitor.visit(coordinate, chunk.slots[i], (T) chunk.values[i]);
+                }
+            }
+        }
+    }
+
+    /** Number of chunks holding at least one entry */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /** Table index holding the key, -1 if absent */
+    private int find(long coordinate, int slot) {
+        int mask = values.length - 1;
+
+        for (int index = hash(coordinate, slot) & mask; values[index] != null; index = (index + 1) & mask) {
+            if (coordinates[index] == coordinate && slots[index] == slot)
+                return index;
+        }
+
+        return -1;
+    }
+
+    /** First empty table index for a key known to be absent */
+    private int probe(long coordinate, int slot) {
+        int mask = values.length - 1;
+        int index = hash(coordinate, slot) & mask;
+
+        while (values[index] != null)
+            index = (index + 1) & mask;
+
+        return index;
+    }
+
+    /** Empty a table index, shifting back later entries of the probe run so no tombstones are needed */
+    private void deleteAt(int index) {
+        int mask = values.length - 1;
+        int gap = index;
+
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = hash(coordinates[next], slots[next]) & mask;
+
+            //move the entry into the gap unless its home lies cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                coordinates[gap] = coordinates[next];
+                slots[gap] = slots[next];
+                values[gap] = values[next];
+                chunkPositions[gap] = chunkPositions[next];
+                gap = next;
+            }
+        }
+
+        values[gap] = null;
+    }
+
+    private void resize(int capacity) {
+        long[] oldCoordinates = coordinates;
+        byte[] oldSlots = slots;
+        Object[] oldValues = values;
+        int[] oldChunkPositions = chunkPositions;
+        coordinates = new long[capacity];
+        slots = new byte[capacity];
+        values = new Object[capacity];
+        chunkPositions = new int[capacity];
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = probe(oldCoordinates[i], oldSlots[i]);
+                coordinates[index] = oldCoordinates[i];
+                slots[index] = oldSlots[i];
+                values[index] = oldValues[i];
+                chunkPositions[index] = oldChunkPositions[i];
+            }
+        }
+    }
+
+    /** Hash of a (packed coordinate, GridSlot) key, also used by GridJournal.compact */
+    static int hash(long coordinate, int slot) {
+        //MurmurHash3 finaliser
+        long z = coordinate * 8 + slot;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) (z ^ (z >>> 33));
+    }
+
+    private Chunk getChunk(long coordinate, boolean create) {
+        long key = chunkKey(PackedCoordinate.getX(coordinate) >> CHUNK_SHIFT, PackedCoordinate.getY(coordinate) >> CHUNK_SHIFT);
+
+        if (key == lastChunkKey && lastChunk != null)
+            return lastChunk;
+
+        Chunk chunk = chunks.get(key);
+
+        if (chunk == null && create) {
+            chunk = new Chunk();
+            chunks.put(key, chunk);
+        }
+
+        lastChunkKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    private void removeChunk(long coordinate) {
+        long key = chunkKey(PackedCoordinate.getX(coordinate) >> CHUNK_SHIFT, PackedCoordinate.getY(coordinate) >> CHUNK_SHIFT);
+        chunks.remove(key);
+
+        if (key == lastChunkKey)
+            lastChunk = null;
+    }
+
+    private static long chunkKey(int chunkX, int chunkY) {
+        return ((long) chunkY << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+
+    /** Unordered entries of one chunk, removed by moving the last entry into the gap */
+    private static class Chunk {
+        private long[] coordinates = new long[8];
+        private byte[] slots = new byte[8];
+        private Object[] values = new Object[8];
+        private int size;
+
+        /** Append an entry, returning its position */
+        private int add(long coordinate, int slot, Object value) {
+            if (size == values.length) {
+                coordinates = Arrays.copyOf(coordinates, size * 2);
+                slots = Arrays.copyOf(slots, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            coordinates[size] = coordinate;
+            slots[size] = (byte) slot;
+            values[size] = value;
+            return size++;
+        }
+
+        /** Remove the entry at a position, returning the position of the entry moved into it or -1 if none moved */
+        private int removeAt(int position) {
+            size--;
+            coordinates[position] = coordinates[size];
+            slots[position] = slots[size];
+            values[position] = values[size];
+            values[size] = null;
+            return position == size ? -1 : position;
+        }
+    }
+}
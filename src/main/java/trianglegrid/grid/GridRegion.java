@@ -0,0 +1,124 @@
+package trianglegrid.grid;
+
+import trianglegrid.coordinates.PackedCoordinate;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+/** A set of nodes described as spans of offset columns in each row, visited in row order.
+ *  Elements belong to a region when the node owning them does. */
+public interface GridRegion {
+    /** First and last offset row of the region */
+    int getMinRow();
+    int getMaxRow();
+
+    /** Number of column spans in the given row */
+    int getSpanCount(int row);
+
+    /** First and last (inclusive) offset column of a span */
+    int getSpanStart(int row, int span);
+    int getSpanEnd(int row, int span);
+
+    /** Whether the node at offset coordinate (x, y) is in the region */
+    default boolean contains(int x, int y) {
+        if (y < getMinRow() || y > getMaxRow())
+            return false;
+
+        for (int span = 0; span < getSpanCount(y); span++) {
+            if (x >= getSpanStart(y, span) && x <= getSpanEnd(y, span))
+                return true;
+        }
+
+        return false;
+    }
+
+    /** Splittable iteration over the rows of the region, for parallel traversal */
+    default Spliterator.OfInt rowSpliterator() {
+        return IntStream.rangeClosed(getMinRow(), getMaxRow()).spliterator();
+    }
+
+    /** Nodes with offset coordinates in [minX, maxX] x [minY, maxY] */
+    static GridRegion offsetRectangle(int minX, int minY, int maxX, int maxY) {
+        SpanRegion.Builder builder = new SpanRegion.Builder(minY, maxY);
+
+        for (int y = minY; y <= maxY; y++)
+            builder.addSpan(y, minX, maxX);
+
+        return builder.build();
+    }
+
+    /** Nodes with axial coordinates in [minA, maxA] x [minB, maxB] */
+    static GridRegion axialRectangle(int minA, int minB, int maxA, int maxB) {
+        SpanRegion.Builder builder = new SpanRegion.Builder(minB, maxB);
+
+        for (int b = minB; b <= maxB; b++) {
+            int columnOffset = (b + (b & 1)) / 2;
+            builder.addSpan(b, minA + columnOffset, maxA + columnOffset);
+        }
+
+        return builder.build();
+    }
+
+    /** Nodes within radius steps of a packed centre coordinate, a hexagon of vertices */
+    static GridRegion hexagon(long centre, int radius) {
+        int centreA = PackedCoordinate.getA(centre);
+        int centreB = PackedCoordinate.getB(centre);
+        SpanRegion.Builder builder = new SpanRegion.Builder(centreB - radius, centreB + radius);
+
+        for (int db = -radius; db <= radius; db++) {
+            int b = centreB + db;
+            int columnOffset = (b + (b & 1)) / 2;
+            int minA = centreA + Math.max(-radius, -db - radius);
+            int maxA = centreA + Math.min(radius, -db + radius);
+            builder.addSpan(b, minA + columnOffset, maxA + columnOffset);
+        }
+
+        return builder.build();
+    }
+
+    /** Nodes whose vertex lies inside a polygon in the screen space of the given geometry (even-odd rule) */
+    static GridRegion polygon(GridGeometry geometry, double[] xPoints, double[] yPoints) {
+        int points = xPoints.length;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+
+        for (double y : yPoints) {
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+
+        if (points < 3)
+            return new SpanRegion.Builder(0, -1).build();
+
+        int minRow = (int) Math.ceil(minY / geometry.rowSpacing);
+        int maxRow = (int) Math.floor(maxY / geometry.rowSpacing);
+        SpanRegion.Builder builder = new SpanRegion.Builder(minRow, maxRow);
+        double[] crossings = new double[points];
+
+        for (int row = minRow; row <= maxRow; row++) {
+            double screenY = geometry.offsetToScreenY(row);
+            int crossingCount = 0;
+
+            //x positions where the row crosses the polygon outline
+            for (int i = 0, j = points - 1; i < points; j = i++) {
+                if ((yPoints[i] <= screenY && screenY < yPoints[j]) || (yPoints[j] <= screenY && screenY < yPoints[i]))
+                    crossings[crossingCount++] = xPoints[i] + (screenY - yPoints[i]) * (xPoints[j] - xPoints[i]) / (yPoints[j] - yPoints[i]);
+            }
+
+            Arrays.sort(crossings, 0, crossingCount);
+            //undo the odd row shift before converting to columns
+            double rowShift = (row & 1) * geometry.oddRowOffset;
+
+            for (int crossing = 0; crossing + 1 < crossingCount; crossing += 2) {
+                int startX = (int) Math.ceil((crossings[crossing] + rowShift) / geometry.columnSpacing);
+                int endX = (int) Math.floor((crossings[crossing + 1] + rowShift) / geometry.columnSpacing);
+
+                if (startX <= endX)
+                    builder.addSpan(row, startX, endX);
+            }
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,158 @@
+package trianglegrid.grid;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/** Steps a TriangleGrid as a cellular automaton. Each generation is computed from the current one into a back buffer
+ *  which is then swapped in, so rules always see a consistent grid. Rows are processed in parallel stripes of
+ *  CHUNK_SIZE rows and only chunks that changed, or border one that changed, in the previous step are recomputed.
+ *  This assumes the rule only reads elements within one node of the element being updated and is deterministic.
+ *  Values set directly on the grid between steps must be reported with markChanged. */
+public class GridSimulation {
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int[] EDGE_FLAGS = {AbstractTriangleGrid.EDGE_0, AbstractTriangleGrid.EDGE_1, AbstractTriangleGrid.EDGE_2};
+
+    private final TriangleGrid grid;
+    private final SimulationRule rule;
+    private final int chunkColumns;
+    private final int chunkRows;
+    /** Chunks to recompute in the next step */
+    private final boolean[] activeChunks;
+    /** Chunks with at least one value changed by the current step */
+    private final boolean[] changedChunks;
+    private GridState back;
+    private long generation;
+
+    public GridSimulation(TriangleGrid grid, SimulationRule rule) {
+        this.grid = grid;
+        this.rule = rule;
+        chunkColumns = (grid.getWidth() + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+        chunkRows = (grid.getHeight() + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+        activeChunks = new boolean[chunkColumns * chunkRows];
+        changedChunks = new boolean[chunkColumns * chunkRows];
+        back = grid.getState().copy();
+        Arrays.fill(activeChunks, true);
+    }
+
+    /** Advance the grid one generation */
+    public void step() {
+        GridState front = grid.getState();
+
+        //stripes sharing a boundary may share a bitset word, so even and odd stripes run in separate passes
+        for (int phase = 0; phase < 2; phase++) {
+            int firstStripe = phase;
+            IntStream.range(0, (chunkRows - firstStripe + 1) / 2).parallel()
+                    .forEach(i -> stepStripe(firstStripe + i * 2, front));
+        }
+
+        grid.swapState(back);
+        back = front;
+        generation++;
+
+        Arrays.fill(activeChunks, false);
+
+        for (int chunkY = 0; chunkY < chunkRows; chunkY++) {
+            for (int chunkX = 0; chunkX < chunkColumns; chunkX++) {
+                if (changedChunks[chunkY * chunkColumns + chunkX]) {
+                    changedChunks[chunkY * chunkColumns + chunkX] = false;
+                    activateAround(chunkX, chunkY);
+                }
+            }
+        }
+    }
+
+    /** Advance the grid the given number of generations */
+    public void step(int generations) {
+        for (int i = 0; i < generations; i++)
+            step();
+    }
+
+    /** Report a value set directly on the grid at (x, y) so its surroundings are recomputed in the next step */
+    public void markChanged(int x, int y) {
+        activateAround(x >>> CHUNK_SHIFT, y >>> CHUNK_SHIFT);
+    }
+
+    /** Recompute every chunk in the next step, for use after widespread direct changes */
+    public void markAllChanged() {
+        Arrays.fill(activeChunks, true);
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /** Number of chunks that will be recomputed in the next step */
+    public int getActiveChunkCount() {
+        int count = 0;
+
+        for (boolean active : activeChunks)
+            if (active)
+                count++;
+
+        return count;
+    }
+
+    public TriangleGrid getGrid() {
+        return grid;
+    }
+
+    private void activateAround(int chunkX, int chunkY) {
+        for (int cy = Math.max(0, chunkY - 1); cy <= Math.min(chunkRows - 1, chunkY + 1); cy++)
+            for (int cx = Math.max(0, chunkX - 1); cx <= Math.min(chunkColumns - 1, chunkX + 1); cx++)
+                activeChunks[cy * chunkColumns + cx] = true;
+    }
+
+    private void stepStripe(int chunkY, GridState front) {
+        for (int chunkX = 0; chunkX < chunkColumns; chunkX++) {
+            int chunk = chunkY * chunkColumns + chunkX;
+
+            if (activeChunks[chunk])
+                changedChunks[chunk] = stepChunk(chunkX, chunkY, front);
+        }
+    }
+
+    /** Compute the next values of one chunk into the back buffer, returning true if any differ from the front */
+    private boolean stepChunk(int chunkX, int chunkY, GridState front) {
+        int width = grid.getWidth();
+        int startX = chunkX << CHUNK_SHIFT;
+        int startY = chunkY << CHUNK_SHIFT;
+        int endX = Math.min(width, startX + CHUNK_SIZE);
+        int endY = Math.min(grid.getHeight(), startY + CHUNK_SIZE);
+        boolean changed = false;
+
+        for (int y = startY; y < endY; y++) {
+            for (int x = startX; x < endX; x++) {
+                int node = y * width + x;
+                int flags = grid.getNodeFlags(x, y);
+
+                int vertexValue = rule.nextVertexValue(grid, x, y) & 0xFF;
+                changed |= vertexValue != (front.vertexValues[node] & 0xFF);
+                back.vertexValues[node] = (byte) vertexValue;
+
+                for (int i = 0; i < 3; i++) {
+                    if ((flags & EDGE_FLAGS[i]) != 0) {
+                        boolean edgeValue = rule.nextEdgeValue(grid, x, y, i);
+                        changed |= edgeValue != front.getEdgeValue(node, i);
+                        back.setEdgeValue(node, i, edgeValue);
+                    }
+                }
+
+                if ((flags & AbstractTriangleGrid.FACE_UP) != 0)
+                    changed |= stepFace(x, y, node, TriangleFace.POINTY_UP, front);
+
+                if ((flags & AbstractTriangleGrid.FACE_DOWN) != 0)
+                    changed |= stepFace(x, y, node, TriangleFace.POINTY_DOWN, front);
+            }
+        }
+
+        return changed;
+    }
+
+    private boolean stepFace(int x, int y, int node, boolean pointing, GridState front) {
+        int index = GridState.faceIndex(node, pointing);
+        int faceValue = rule.nextFaceValue(grid, x, y, pointing) & 0xFF;
+        back.faceValues[index] = (byte) faceValue;
+        return faceValue != (front.faceValues[index] & 0xFF);
+    }
+}
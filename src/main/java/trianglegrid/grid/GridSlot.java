@@ -0,0 +1,50 @@
+package trianglegrid.grid;
+
+/** Identifies an element relative to the node that owns it: its vertex, one of its 3 edges or one of its 2 faces.
+ *  Slot masks select a set of slots, with bit (1 << slot) set for each slot included. */
+public final class GridSlot {
+    public static final int VERTEX = 0;
+    public static final int EDGE_0 = 1;
+    public static final int EDGE_1 = 2;
+    public static final int EDGE_2 = 3;
+    public static final int FACE_UP = 4;
+    public static final int FACE_DOWN = 5;
+    public static final int SLOT_COUNT = 6;
+
+    /** Slot masks */
+    public static final int VERTICES = 1 << VERTEX;
+    public static final int EDGES = (1 << EDGE_0) | (1 << EDGE_1) | (1 << EDGE_2);
+    public static final int FACES = (1 << FACE_UP) | (1 << FACE_DOWN);
+    public static final int ALL = VERTICES | EDGES | FACES;
+
+    private GridSlot() {
+    }
+
+    /** Slot of the edge (0 - 2) owned by a node */
+    public static int edge(int edgeIndex) {
+        return EDGE_0 + edgeIndex;
+    }
+
+    /** Slot of the pointy up or pointy down face owned by a node */
+    public static int face(boolean pointing) {
+        return pointing == TriangleFace.POINTY_UP ? FACE_UP : FACE_DOWN;
+    }
+
+    public static boolean isEdge(int slot) {
+        return slot >= EDGE_0 && slot <= EDGE_2;
+    }
+
+    public static boolean isFace(int slot) {
+        return slot == FACE_UP || slot == FACE_DOWN;
+    }
+
+    /** Edge index (0 - 2) of an edge slot */
+    public static int edgeIndex(int slot) {
+        return slot - EDGE_0;
+    }
+
+    /** Pointing of a face slot */
+    public static boolean pointing(int slot) {
+        return slot == FACE_DOWN ? TriangleFace.POINTY_DOWN : TriangleFace.POINTY_UP;
+    }
+}
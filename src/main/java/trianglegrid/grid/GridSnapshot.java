@@ -0,0 +1,54 @@
+package trianglegrid.grid;
+
+/** Read only view of a ConcurrentTriangleGrid frozen by ConcurrentTriangleGrid.snapshot.
+ *  Later writes to the grid are not visible. Setting any value throws UnsupportedOperationException. */
+public class GridSnapshot extends AbstractTriangleGrid {
+    private final int chunkColumns;
+    private final ConcurrentTriangleGrid.Chunk[] chunks;
+
+    GridSnapshot(int gridWidth, int gridHeight, int chunkColumns, ConcurrentTriangleGrid.Chunk[] chunks) {
+        super(gridWidth, gridHeight);
+        this.chunkColumns = chunkColumns;
+        this.chunks = chunks;
+    }
+
+    @Override
+    protected int getNodeFlags(int x, int y) {
+        return computeNodeFlags(x, y, gridWidth, gridHeight);
+    }
+
+    @Override
+    public boolean getEdgeValue(int x, int y, int edgeIndex) {
+        int bit = ConcurrentTriangleGrid.chunkNode(x, y) * 3 + edgeIndex;
+        return (chunk(x, y).edgeValues[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    @Override
+    public void setEdgeValue(int x, int y, int edgeIndex, boolean value) {
+        throw new UnsupportedOperationException("Snapshot is read only");
+    }
+
+    @Override
+    public int getVertexValue(int x, int y) {
+        return chunk(x, y).vertexValues[ConcurrentTriangleGrid.chunkNode(x, y)] & 0xFF;
+    }
+
+    @Override
+    public void setVertexValue(int x, int y, int value) {
+        throw new UnsupportedOperationException("Snapshot is read only");
+    }
+
+    @Override
+    public int getFaceValue(int x, int y, boolean pointing) {
+        return chunk(x, y).faceValues[GridState.faceIndex(ConcurrentTriangleGrid.chunkNode(x, y), pointing)] & 0xFF;
+    }
+
+    @Override
+    public void setFaceValue(int x, int y, boolean pointing, int value) {
+        throw new UnsupportedOperationException("Snapshot is read only");
+    }
+
+    private ConcurrentTriangleGrid.Chunk chunk(int x, int y) {
+        return chunks[(y >>> ConcurrentTriangleGrid.CHUNK_SHIFT) * chunkColumns + (x >>> ConcurrentTriangleGrid.CHUNK_SHIFT)];
+    }
+}
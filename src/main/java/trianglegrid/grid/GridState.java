@@ -0,0 +1,49 @@
+package trianglegrid.grid;
+
+/** Element values of a TriangleGrid, indexed by node = y * gridWidth + x.
+ *  Edge binary values are a bitset of 3 bits per node, vertex values 1 byte per node and face values 2 bytes per node. */
+final class GridState {
+    final long[] edgeValues;
+    final byte[] vertexValues;
+    final byte[] faceValues;
+
+    GridState(int nodeCount) {
+        edgeValues = new long[edgeWordCount(nodeCount)];
+        vertexValues = new byte[nodeCount];
+        faceValues = new byte[nodeCount * 2];
+    }
+
+    GridState(long[] edgeValues, byte[] vertexValues, byte[] faceValues) {
+        this.edgeValues = edgeValues;
+        this.vertexValues = vertexValues;
+        this.faceValues = faceValues;
+    }
+
+    /** Number of bitset words holding the edge values of nodeCount nodes */
+    static int edgeWordCount(int nodeCount) {
+        return (int) (((long) nodeCount * 3 + 63) >>> 6);
+    }
+
+    GridState copy() {
+        return new GridState(edgeValues.clone(), vertexValues.clone(), faceValues.clone());
+    }
+
+    boolean getEdgeValue(int node, int edgeIndex) {
+        int bit = node * 3 + edgeIndex;
+        return (edgeValues[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    void setEdgeValue(int node, int edgeIndex, boolean value) {
+        int bit = node * 3 + edgeIndex;
+
+        if (value)
+            edgeValues[bit >>> 6] |= 1L << bit;
+        else
+            edgeValues[bit >>> 6] &= ~(1L << bit);
+    }
+
+    /** Face values are stored pointy up then pointy down for each node */
+    static int faceIndex(int node, boolean pointing) {
+        return node * 2 + (pointing == TriangleFace.POINTY_UP ? 0 : 1);
+    }
+}
@@ -0,0 +1,70 @@
+package trianglegrid.grid;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/** Whole grid operations over chunk streams, each holding one chunk in memory at a time. */
+public final class GridStreams {
+    private GridStreams() {
+    }
+
+    /** Write every chunk of a grid in row order. Closes the output stream. */
+    public static void export(AbstractTriangleGrid grid, OutputStream out, int chunkSize, int flags) throws IOException {
+        GridChunk chunk = new GridChunk(chunkSize);
+        int chunkColumns = (int) (((long) grid.getWidth() + chunkSize - 1) / chunkSize);
+        int chunkRows = (int) (((long) grid.getHeight() + chunkSize - 1) / chunkSize);
+
+        try (GridChunkWriter writer = new GridChunkWriter(out, grid.getWidth(), grid.getHeight(), chunkSize, flags)) {
+            for (int chunkY = 0; chunkY < chunkRows; chunkY++) {
+                for (int chunkX = 0; chunkX < chunkColumns; chunkX++) {
+                    chunk.copyFrom(grid, chunkX, chunkY);
+                    writer.writeChunk(chunk);
+                }
+            }
+
+            writer.finish();
+        }
+    }
+
+    /** Copy every chunk of a stream into a grid of at least the stream's dimensions. Closes the input stream. */
+    public static void importInto(InputStream in, AbstractTriangleGrid grid) throws IOException {
+        try (GridChunkReader reader = new GridChunkReader(in)) {
+            if (grid.getWidth() < reader.getWidth() || grid.getHeight() < reader.getHeight())
+                throw new IllegalArgumentException("Grid is smaller than the stream");
+
+            GridChunk chunk = new GridChunk(reader.getChunkSize());
+
+            while (reader.readChunk(chunk))
+                chunk.copyTo(grid);
+        }
+    }
+
+    /** Read a TriangleGrid of the stream's dimensions. Closes the input stream. */
+    public static TriangleGrid read(InputStream in) throws IOException {
+        try (GridChunkReader reader = new GridChunkReader(in)) {
+            TriangleGrid grid = new TriangleGrid(reader.getWidth(), reader.getHeight(), EdgeInitializer.constant(false));
+            GridChunk chunk = new GridChunk(reader.getChunkSize());
+
+            while (reader.readChunk(chunk))
+                chunk.copyTo(grid);
+
+            return grid;
+        }
+    }
+
+    /** Copy a chunk stream, applying a transform to each chunk, in memory bounded by one chunk. Closes both streams. */
+    public static void transform(InputStream in, OutputStream out, int flags, ChunkTransform transform) throws IOException {
+        try (GridChunkReader reader = new GridChunkReader(in);
+             GridChunkWriter writer = new GridChunkWriter(out, reader.getWidth(), reader.getHeight(), reader.getChunkSize(), flags)) {
+            GridChunk chunk = new GridChunk(reader.getChunkSize());
+
+            while (reader.readChunk(chunk)) {
+                transform.apply(chunk);
+                writer.writeChunk(chunk);
+            }
+
+            writer.finish();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package trianglegrid.grid;
+
+import java.nio.ByteBuffer;
+
+/** Read only TriangleGrid backed by a memory mapped grid file, see TriangleGridFile.map.
+ *  Element data stays in the mapping rather than the heap. Setting any value throws UnsupportedOperationException. */
+public class MappedTriangleGrid extends AbstractTriangleGrid {
+    private final ByteBuffer edgeValues;
+    private final ByteBuffer nodeFlags;
+    private final ByteBuffer vertexValues;
+    private final ByteBuffer faceValues;
+
+    MappedTriangleGrid(int gridWidth, int gridHeight, ByteBuffer edgeValues, ByteBuffer nodeFlags,
+                       ByteBuffer vertexValues, ByteBuffer faceValues) {
+        super(gridWidth, gridHeight);
+        this.edgeValues = edgeValues;
+        this.nodeFlags = nodeFlags;
+        this.vertexValues = vertexValues;
+        this.faceValues = faceValues;
+    }
+
+    @Override
+    protected int getNodeFlags(int x, int y) {
+        return nodeFlags.get(y * gridWidth + x);
+    }
+
+    @Override
+    public boolean getEdgeValue(int x, int y, int edgeIndex) {
+        int bit = (y * gridWidth + x) * 3 + edgeIndex;
+        return (edgeValues.getLong((bit >>> 6) << 3) & (1L << bit)) != 0;
+    }
+
+    @Override
+    public void setEdgeValue(int x, int y, int edgeIndex, boolean value) {
+        throw new UnsupportedOperationException("Mapped grid is read only");
+    }
+
+    @Override
+    public int getVertexValue(int x, int y) {
+        return vertexValues.get(y * gridWidth + x) & 0xFF;
+    }
+
+    @Override
+    public void setVertexValue(int x, int y, int value) {
+        throw new UnsupportedOperationException("Mapped grid is read only");
+    }
+
+    @Override
+    public int getFaceValue(int x, int y, boolean pointing) {
+        return faceValues.get(GridState.faceIndex(y * gridWidth + x, pointing)) & 0xFF;
+    }
+
+    @Override
+    public void setFaceValue(int x, int y, boolean pointing, int value) {
+        throw new UnsupportedOperationException("Mapped grid is read only");
+    }
+}
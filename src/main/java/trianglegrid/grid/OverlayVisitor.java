@@ -0,0 +1,7 @@
+package trianglegrid.grid;
+
+/** Receives the objects of a GridOverlay, each anchored to a node's packed coordinate and GridSlot. */
+@FunctionalInterface
+public interface OverlayVisitor<T> {
+    void visit(long coordinate, int slot, T value);
+}
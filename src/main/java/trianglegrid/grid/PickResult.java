@@ -0,0 +1,60 @@
+package trianglegrid.grid;
+
+import trianglegrid.coordinates.PackedCoordinate;
+
+/** Reusable holder for the element found at a screen point by GridGeometry.pick.
+ *  Vertices are given by their coordinate, edges and faces by a vertex coordinate and direction as DirectedCoordinate. */
+public class PickResult {
+    public static final int VERTEX = 0;
+    public static final int EDGE = 1;
+    public static final int FACE = 2;
+
+    /** VERTEX, EDGE or FACE */
+    public int type;
+    /** Axial coordinate of the vertex, or of the vertex the edge or face direction is taken from */
+    public int a, b;
+    /** Direction (0 - 5) of an edge or face, -1 for a vertex */
+    public int direction;
+    /** Unrounded grid coordinate of the picked point */
+    public double gridA, gridB;
+
+    /** Packed coordinate of the picked vertex, or of the vertex the direction is taken from */
+    public long toPacked() {
+        return PackedCoordinate.pack(a, b);
+    }
+
+    /** Offset column of the picked vertex, or of the vertex the direction is taken from */
+    public int getX() {
+        return a + (b + (b & 1)) / 2;
+    }
+
+    /** Offset row of the picked vertex, or of the vertex the direction is taken from */
+    public int getY() {
+        return b;
+    }
+
+    /** Copy another result into this one */
+    public void set(PickResult other) {
+        type = other.type;
+        a = other.a;
+        b = other.b;
+        direction = other.direction;
+        gridA = other.gridA;
+        gridB = other.gridB;
+    }
+
+    /** Whether both results picked the same element, wherever within it the points fell */
+    public boolean isSameElement(PickResult other) {
+        return type == other.type && a == other.a && b == other.b && direction == other.direction;
+    }
+
+    @Override
+    public String toString() {
+        return "PickResult{" +
+                "type=" + type +
+                ", a=" + a +
+                ", b=" + b +
+                ", direction=" + direction +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+package trianglegrid.grid;
+
+import java.util.Arrays;
+
+/** Reusable column arrays holding the elements found at many screen points by GridGeometry.pick.
+ *  Entry i holds the same fields as a PickResult for point i. Arrays grow as needed and are never shrunk. */
+public class PickResults {
+    public byte[] types = new byte[0];
+    public int[] a = new int[0];
+    public int[] b = new int[0];
+    public byte[] directions = new byte[0];
+    public double[] gridA = new double[0];
+    public double[] gridB = new double[0];
+    private int count;
+
+    /** Number of valid entries from the last pick */
+    public int getCount() {
+        return count;
+    }
+
+    /** Copy entry i into a single result */
+    public void get(int i, PickResult result) {
+        result.type = types[i];
+        result.a = a[i];
+        result.b = b[i];
+        result.direction = directions[i];
+        result.gridA = gridA[i];
+        result.gridB = gridB[i];
+    }
+
+    void ensureCapacity(int capacity) {
+        count = capacity;
+
+        if (types.length >= capacity)
+            return;
+
+        types = Arrays.copyOf(types, capacity);
+        a = Arrays.copyOf(a, capacity);
+        b = Arrays.copyOf(b, capacity);
+        directions = Arrays.copyOf(directions, capacity);
+        gridA = Arrays.copyOf(gridA, capacity);
+        gridB = Arrays.copyOf(gridB, capacity);
+    }
+}
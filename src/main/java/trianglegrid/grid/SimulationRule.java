@@ -0,0 +1,21 @@
+package trianglegrid.grid;
+
+/** Local update rule applied to every element by a GridSimulation.
+ *  The grid passed in holds the current generation and must only be read, any neighbouring element may be inspected.
+ *  Methods not overridden keep the element's current value. */
+public interface SimulationRule {
+    /** Next binary value of the edge (0 - 2) owned by the node at (x, y) */
+    default boolean nextEdgeValue(AbstractTriangleGrid current, int x, int y, int edgeIndex) {
+        return current.getEdgeValue(x, y, edgeIndex);
+    }
+
+    /** Next value (0 - 255) of the face owned by the node at (x, y) */
+    default int nextFaceValue(AbstractTriangleGrid current, int x, int y, boolean pointing) {
+        return current.getFaceValue(x, y, pointing);
+    }
+
+    /** Next value (0 - 255) of the vertex at (x, y) */
+    default int nextVertexValue(AbstractTriangleGrid current, int x, int y) {
+        return current.getVertexValue(x, y);
+    }
+}
@@ -0,0 +1,94 @@
+package trianglegrid.grid;
+
+import java.util.Arrays;
+
+/** GridRegion stored as flat arrays of spans, grouped by row. */
+final class SpanRegion implements GridRegion {
+    private final int minRow;
+    private final int maxRow;
+    /** Spans of row y are [rowOffsets[y - minRow], rowOffsets[y - minRow + 1]) */
+    private final int[] rowOffsets;
+    private final int[] spanStarts;
+    private final int[] spanEnds;
+
+    private SpanRegion(int minRow, int maxRow, int[] rowOffsets, int[] spanStarts, int[] spanEnds) {
+        this.minRow = minRow;
+        this.maxRow = maxRow;
+        this.rowOffsets = rowOffsets;
+        this.spanStarts = spanStarts;
+        this.spanEnds = spanEnds;
+    }
+
+    @Override
+    public int getMinRow() {
+        return minRow;
+    }
+
+    @Override
+    public int getMaxRow() {
+        return maxRow;
+    }
+
+    @Override
+    public int getSpanCount(int row) {
+        if (row < minRow || row > maxRow)
+            return 0;
+
+        return rowOffsets[row - minRow + 1] - rowOffsets[row - minRow];
+    }
+
+    @Override
+    public int getSpanStart(int row, int span) {
+        return spanStarts[rowOffsets[row - minRow] + span];
+    }
+
+    @Override
+    public int getSpanEnd(int row, int span) {
+        return spanEnds[rowOffsets[row - minRow] + span];
+    }
+
+    /** Collects spans row by row, rows must be added in ascending order */
+    static class Builder {
+        private final int minRow;
+        private final int maxRow;
+        private final int[] rowOffsets;
+        private int[] spanStarts = new int[16];
+        private int[] spanEnds = new int[16];
+        private int spanCount;
+        private int currentRow;
+
+        Builder(int minRow, int maxRow) {
+            this.minRow = minRow;
+            this.maxRow = Math.max(minRow - 1, maxRow);
+            this.rowOffsets = new int[this.maxRow - minRow + 2];
+            this.currentRow = minRow;
+        }
+
+        void addSpan(int row, int startX, int endX) {
+            closeRowsBefore(row);
+
+            if (spanCount == spanStarts.length) {
+                spanStarts = Arrays.copyOf(spanStarts, spanCount * 2);
+                spanEnds = Arrays.copyOf(spanEnds, spanCount * 2);
+            }
+
+            spanStarts[spanCount] = startX;
+            spanEnds[spanCount] = endX;
+            spanCount++;
+        }
+
+        /** Record where each row before the given row ends */
+        private void closeRowsBefore(int row) {
+            while (currentRow < row) {
+                currentRow++;
+                rowOffsets[currentRow - minRow] = spanCount;
+            }
+        }
+
+        SpanRegion build() {
+            closeRowsBefore(maxRow + 1);
+            return new SpanRegion(minRow, maxRow, rowOffsets,
+                    Arrays.copyOf(spanStarts, spanCount), Arrays.copyOf(spanEnds, spanCount));
+        }
+    }
+}
@@ -1,6 +1,63 @@
 package trianglegrid.grid;
 
+/** Flyweight view of a pointy up or pointy down face owned by the node at (x, y) of a TriangleGrid. */
 public class TriangleFace {
     public final static boolean POINTY_UP = false;
     public final static boolean POINTY_DOWN = true;
+
+    private final AbstractTriangleGrid grid;
+    private final int x, y;
+    private final boolean pointing;
+
+    TriangleFace(AbstractTriangleGrid grid, int x, int y, boolean pointing) {
+        this.grid = grid;
+        this.x = x;
+        this.y = y;
+        this.pointing = pointing;
+    }
+
+    /** Value (0 - 255) held by the face */
+    public int getValue() {
+        return grid.getFaceValue(x, y, pointing);
+    }
+
+    public void setValue(int value) {
+        grid.setFaceValue(x, y, pointing, value);
+    }
+
+    /** Face sharing the given side (0 - 2) with this face, null at the grid border */
+    public TriangleFace getAdjacentFace(int side) {
+        return grid.getFace(FaceAdjacency.adjacentX(x, y, pointing, side), FaceAdjacency.adjacentY(y, pointing, side), !pointing);
+    }
+
+    /** Edge forming the given side (0 - 2) of this face */
+    public Edge getEdge(int side) {
+        return grid.getEdge(FaceAdjacency.edgeX(x, y, pointing, side), FaceAdjacency.edgeY(y, pointing, side), side);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public boolean getPointing() {
+        return pointing;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TriangleFace))
+            return false;
+
+        TriangleFace other = (TriangleFace) o;
+        return grid == other.grid && x == other.x && y == other.y && pointing == other.pointing;
+    }
+
+    @Override
+    public int hashCode() {
+        return (31 * (31 * x + y)) + (pointing ? 1 : 0);
+    }
 }
@@ -1,169 +1,143 @@
 package trianglegrid.grid;
 
-import trianglegrid.coordinates.TriangleCoordinate;
+import java.util.stream.IntStream;
 
-/** Represents a grid of triangle vertices, edges, and faces. */
-public class TriangleGrid {
-    private TriangleGridNode[][] nodes;
+/** Represents a grid of triangle vertices, edges, and faces.
+ *  All nodes are allocated up front, grid data is held in flat primitive arrays indexed by offset coordinate. */
+public class TriangleGrid extends AbstractTriangleGrid {
+    /** Approximate number of nodes built by a single construction task */
+    private static final int NODES_PER_BLOCK = 1 << 16;
 
-    /** Dimensions in number of vertices. */
-    private final int gridWidth;
-    private final int gridHeight;
+    /** Existence flags for each node, indexed by y * gridWidth + x */
+    private final byte[] nodeFlags;
+    /** Element values, replaced wholesale when a GridSimulation steps */
+    private volatile GridState state;
 
     public TriangleGrid(int gridWidth, int gridHeight) {
-        this.gridWidth = gridWidth;
-        this.gridHeight = gridHeight;
-        nodes = new TriangleGridNode[gridHeight][];
-        createGrid();
-    }
-
-    private void createGrid() {
-        for (int y = 0; y < gridHeight; y++) {
-            nodes[y] = new TriangleGridNode[gridWidth];
-            for (int x = 0; x < gridWidth; x++) {
-                TriangleCoordinate coordinate = TriangleCoordinate.fromOffsetCoordinate(x, y);
-                //validate for border vertices
-                boolean vertex0 = isInBounds(coordinate.getNeighbour(0));
-                boolean vertex1 = isInBounds(coordinate.getNeighbour(1));
-                boolean vertex2 = isInBounds(coordinate.getNeighbour(2));
-                boolean vertex3 = isInBounds(coordinate.getNeighbour(3));
-                boolean vertex4 = isInBounds(coordinate.getNeighbour(4));
-                boolean facePointyUp = vertex0 && vertex1;
-                boolean facePointyDown = vertex3 && vertex4;
-                nodes[y][x] = new TriangleGridNode(vertex0, vertex1, vertex2, facePointyUp, facePointyDown);
-            }
-        }
+        this(gridWidth, gridHeight, EdgeInitializer.random());
     }
 
-    /** Determines whether a coordinate falls within the grid */
-    private boolean isInBounds(TriangleCoordinate coordinate) {
-        return isInBounds(coordinate.getX(), coordinate.getY());
+    /** Constructs a grid with edge values supplied by the given initializer */
+    public TriangleGrid(int gridWidth, int gridHeight, EdgeInitializer edgeInitializer) {
+        super(gridWidth, gridHeight);
+        nodeFlags = new byte[gridWidth * gridHeight];
+        state = new GridState(gridWidth * gridHeight);
+        createGrid(edgeInitializer);
     }
 
-    /** Determines whether a coordinate falls within the grid */
-    private boolean isInBounds(int x, int y) {
-        if (y < 0 || y >= gridHeight || x < 0 || x >= gridWidth)
-            return false;
-        else
-            return true;
+    /** Wraps existing existence flags and element values, as read by TriangleGridFile */
+    TriangleGrid(int gridWidth, int gridHeight, byte[] nodeFlags, GridState state) {
+        super(gridWidth, gridHeight);
+        this.nodeFlags = nodeFlags;
+        this.state = state;
     }
 
-    /** Return a TriangleGridNode. null if coordinate falls outside grid  */
-    public TriangleGridNode getNode(int x, int y) {
-        if (!isInBounds(x, y))
-            return null;
-        else
-            return nodes[y][x];
+    /** Build the grid in blocks of rows on the common fork-join pool */
+    private void createGrid(EdgeInitializer edgeInitializer) {
+        int rowsPerBlock = Math.max(1, NODES_PER_BLOCK / Math.max(1, gridWidth));
+        int blockCount = (gridHeight + rowsPerBlock - 1) / rowsPerBlock;
+
+        IntStream.range(0, blockCount).parallel().forEach(block -> {
+            int startRow = block * rowsPerBlock;
+            int endRow = Math.min(gridHeight, startRow + rowsPerBlock);
+            createRows(startRow, endRow);
+            //blocks own whole bitset words, so no word is written by two threads
+            createEdgeValues(wordIndex(startRow), wordIndex(endRow), edgeInitializer);
+        });
     }
 
-    /** Return a TriangleGridNode. null if coordinate falls outside grid  */
-    public TriangleGridNode getNode(TriangleCoordinate coordinate) {
-        return getNode(coordinate.getX(), coordinate.getY());
+    /** Index of the first bitset word starting at or after the given row */
+    private int wordIndex(int row) {
+        long bit = (long) row * gridWidth * 3;
+        return (int) Math.min(state.edgeValues.length, (bit + 63) >>> 6);
     }
 
-    /** Return a Vertex. null if coordinate falls outside grid */
-    public Vertex getVertex(TriangleCoordinate coordinate) {
-        TriangleGridNode node = getNode(coordinate.getX(), coordinate.getY());
+    /** Fill existence flags for rows [startRow, endRow) */
+    private void createRows(int startRow, int endRow) {
+        for (int y = startRow; y < endRow; y++) {
+            int rowOffset = y * gridWidth;
 
-        if (node != null)
-            return node.vertex;
-        else
-            return null;
+            for (int x = 0; x < gridWidth; x++)
+                nodeFlags[rowOffset + x] = (byte) computeNodeFlags(x, y, gridWidth, gridHeight);
+        }
     }
 
-    /** Return Edge given a vertex coordinate and a direction. null if coordinate falls outside grid */
-    public Edge getEdge(TriangleCoordinate coordinate, int edgeIndex) {
-        if (edgeIndex >= 3) {
-            coordinate = coordinate.getNeighbour(edgeIndex);
-            edgeIndex = edgeIndex - 3;
+    /** Fill bitset words [startWord, endWord) with initial edge values */
+    private void createEdgeValues(int startWord, int endWord, EdgeInitializer edgeInitializer) {
+        long totalBits = (long) gridWidth * gridHeight * 3;
+        long bit = (long) startWord << 6;
+        int node = (int) (bit / 3);
+        int edgeIndex = (int) (bit % 3);
+        int x = node % Math.max(1, gridWidth);
+        int y = node / Math.max(1, gridWidth);
+
+        for (int word = startWord; word < endWord; word++) {
+            long value = 0;
+
+            for (int i = 0; i < 64 && bit < totalBits; i++, bit++) {
+                if (edgeInitializer.initialValue(x, y, edgeIndex))
+                    value |= 1L << i;
+
+                if (++edgeIndex == 3) {
+                    edgeIndex = 0;
+                    if (++x == gridWidth) {
+                        x = 0;
+                        y++;
+                    }
+                }
+            }
+
+            state.edgeValues[word] = value;
         }
+    }
 
-        TriangleGridNode node = getNode(coordinate.getX(), coordinate.getY());
+    @Override
+    protected int getNodeFlags(int x, int y) {
+        return nodeFlags[y * gridWidth + x];
+    }
 
-        if (node != null)
-            return node.edges[edgeIndex];
-        else
-            return null;
+    @Override
+    public boolean getEdgeValue(int x, int y, int edgeIndex) {
+        return state.getEdgeValue(y * gridWidth + x, edgeIndex);
     }
 
-    private TriangleFace getFace(TriangleCoordinate coordinate, boolean pointing) {
-        TriangleGridNode node = getNode(coordinate.getX(), coordinate.getY());
+    @Override
+    public void setEdgeValue(int x, int y, int edgeIndex, boolean value) {
+        state.setEdgeValue(y * gridWidth + x, edgeIndex, value);
+    }
 
-        if (node != null) {
-            if (pointing == TriangleFace.POINTY_UP) {
-                return node.faceUp;
-            } else {
-                return node.faceDown;
-            }
-        } else
-            return null;
-    }
-
-    /** Return Face given a vertex coordinate and a direction. null if coordinate falls outside grid */
-    public TriangleFace getFace(TriangleCoordinate coordinate, int direction) {
-        switch (direction % 6) {
-            case 0:
-                return getFace(coordinate.getNeighbour(0), TriangleFace.POINTY_DOWN);
-            case 1:
-                return getFace(coordinate, TriangleFace.POINTY_UP);
-            case 2:
-                return getFace(coordinate.getNeighbour(1), TriangleFace.POINTY_DOWN);
-            case 3:
-                return getFace(coordinate.getNeighbour(3), TriangleFace.POINTY_UP);
-            case 4:
-                return getFace(coordinate, TriangleFace.POINTY_DOWN);
-            case 5:
-                return getFace(coordinate.getNeighbour(4), TriangleFace.POINTY_UP);
-        }
+    @Override
+    public int getVertexValue(int x, int y) {
+        return state.vertexValues[y * gridWidth + x] & 0xFF;
+    }
 
-        //never called
-        return null;
-    }
-
-    /** Grid width in vertices */
-    public int getWidth() {
-        return gridWidth;
-    }
-
-    /** Grid height in vertices */
-    public int getHeight() {
-        return gridHeight;
-    }
-
-    /** Structure holding all grid data.
-     *  Each node contains:
-     *  1 vertex,
-     *  2 faces,
-     *  3 edges.
-     *
-     *  Every cell is guaranteed to contain a vertex, but not necessarily all faces and edges (around the grid border).
-     *  */
-    public static class TriangleGridNode {
-        public final Vertex vertex;
-        public final TriangleFace faceUp;
-        public final TriangleFace faceDown;
-        public final Edge[] edges = new Edge[3];
-
-        public TriangleGridNode(boolean edge0, boolean edge1, boolean edge2, boolean facePointyUp, boolean facePointyDown) {
-            vertex = new Vertex();
-
-            //boolean values determine whether they exist or not (eg. border)
-            if (edge0)
-                edges[0] = new Edge();
-            if (edge1)
-                edges[1] = new Edge();
-            if (edge2)
-                edges[2] = new Edge();
-
-            if (facePointyUp)
-                faceUp = new TriangleFace();
-            else
-                faceUp = null;
-
-            if (facePointyDown)
-                faceDown = new TriangleFace();
-            else
-                faceDown = null;
-        }
+    @Override
+    public void setVertexValue(int x, int y, int value) {
+        state.vertexValues[y * gridWidth + x] = (byte) value;
+    }
+
+    @Override
+    public int getFaceValue(int x, int y, boolean pointing) {
+        return state.faceValues[GridState.faceIndex(y * gridWidth + x, pointing)] & 0xFF;
+    }
+
+    @Override
+    public void setFaceValue(int x, int y, boolean pointing, int value) {
+        state.faceValues[GridState.faceIndex(y * gridWidth + x, pointing)] = (byte) value;
+    }
+
+    byte[] getNodeFlagArray() {
+        return nodeFlags;
+    }
+
+    GridState getState() {
+        return state;
+    }
+
+    /** Install a new set of element values, returning the previous one */
+    GridState swapState(GridState newState) {
+        GridState previous = state;
+        state = newState;
+        return previous;
     }
 }
@@ -0,0 +1,202 @@
+package trianglegrid.grid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** Reads and writes grid state as a compact binary file through memory mapping.
+ *  Layout, little endian:
+ *  header (HEADER_SIZE bytes): magic, version, width, height, then zero padding,
+ *  edge values: the edge bitset as 64 bit words, 3 bits per node,
+ *  existence flags: 1 byte per node,
+ *  vertex values: 1 byte per node,
+ *  face values: 2 bytes per node, pointy up then pointy down.
+ *  Nodes are in row order, indexed y * width + x. Sections are copied in bulk so load time is bounded by I/O. */
+public final class TriangleGridFile {
+    /** "TGRD" */
+    public static final int MAGIC = 0x54475244;
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    /** Largest region mapped at once when copying sections to and from the heap */
+    private static final int WINDOW_SIZE = 64 << 20;
+
+    private TriangleGridFile() {
+    }
+
+    /** Write the grid's current state, replacing any existing file.
+     *  A TriangleGrid is written from its arrays directly, any other grid is first copied element by element. */
+    public static void write(AbstractTriangleGrid grid, Path path) throws IOException {
+        if (!isSupportedSize(grid.getWidth(), grid.getHeight()))
+            throw new IllegalArgumentException("Grid of " + grid.getWidth() + " x " + grid.getHeight() + " is too large for a grid file");
+
+        Layout layout = new Layout(grid.getWidth(), grid.getHeight());
+        GridState state;
+        byte[] nodeFlags;
+
+        if (grid instanceof TriangleGrid triangleGrid) {
+            //take the state once so a simulation swapping buffers cannot tear the file
+            state = triangleGrid.getState();
+            nodeFlags = triangleGrid.getNodeFlagArray();
+        } else {
+            state = new GridState(layout.width * layout.height);
+            nodeFlags = new byte[layout.width * layout.height];
+            copyState(grid, state, nodeFlags);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(layout.width).putInt(layout.height).rewind();
+
+            while (header.hasRemaining())
+                channel.write(header, header.position());
+
+            writeLongs(channel, layout.edgeOffset, state.edgeValues);
+            writeBytes(channel, layout.flagsOffset, nodeFlags);
+            writeBytes(channel, layout.vertexOffset, state.vertexValues);
+            writeBytes(channel, layout.faceOffset, state.faceValues);
+        }
+    }
+
+    /** Load a grid file onto the heap as a TriangleGrid */
+    public static TriangleGrid read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Layout layout = readHeader(channel);
+            int nodeCount = layout.width * layout.height;
+            GridState state = new GridState(nodeCount);
+            byte[] nodeFlags = new byte[nodeCount];
+            readLongs(channel, layout.edgeOffset, state.edgeValues);
+            readBytes(channel, layout.flagsOffset, nodeFlags);
+            readBytes(channel, layout.vertexOffset, state.vertexValues);
+            readBytes(channel, layout.faceOffset, state.faceValues);
+            return new TriangleGrid(layout.width, layout.height, nodeFlags, state);
+        }
+    }
+
+    /** Map a grid file read only without copying it onto the heap. Pages are shared with any other process
+     *  mapping the same file, and the mapping stays valid after this method returns. */
+    public static MappedTriangleGrid map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Layout layout = readHeader(channel);
+            return new MappedTriangleGrid(layout.width, layout.height,
+                    mapSection(channel, layout.edgeOffset, layout.flagsOffset - layout.edgeOffset),
+                    mapSection(channel, layout.flagsOffset, layout.vertexOffset - layout.flagsOffset),
+                    mapSection(channel, layout.vertexOffset, layout.faceOffset - layout.vertexOffset),
+                    mapSection(channel, layout.faceOffset, layout.size - layout.faceOffset));
+        }
+    }
+
+    /** Copy the values and existence flags of every node of a grid into arrays in file order */
+    private static void copyState(AbstractTriangleGrid grid, GridState state, byte[] nodeFlags) {
+        int width = grid.getWidth();
+
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < width; x++) {
+                int node = y * width + x;
+                nodeFlags[node] = (byte) grid.getNodeFlags(x, y);
+                state.vertexValues[node] = (byte) grid.getVertexValue(x, y);
+                state.faceValues[GridState.faceIndex(node, TriangleFace.POINTY_UP)] = (byte) grid.getFaceValue(x, y, TriangleFace.POINTY_UP);
+                state.faceValues[GridState.faceIndex(node, TriangleFace.POINTY_DOWN)] = (byte) grid.getFaceValue(x, y, TriangleFace.POINTY_DOWN);
+
+                for (int edgeIndex = 0; edgeIndex < 3; edgeIndex++)
+                    state.setEdgeValue(node, edgeIndex, grid.getEdgeValue(x, y, edgeIndex));
+            }
+        }
+    }
+
+    private static Layout readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0)
+                throw new IOException("Truncated triangle grid header");
+        }
+
+        header.flip();
+
+        if (header.getInt() != MAGIC)
+            throw new IOException("Not a triangle grid file");
+
+        int version = header.getInt();
+
+        if (version < 1 || version > VERSION)
+            throw new IOException("Unsupported triangle grid file version " + version);
+
+        int width = header.getInt();
+        int height = header.getInt();
+
+        if (width <= 0 || height <= 0 || !isSupportedSize(width, height))
+            throw new IOException("Invalid triangle grid dimensions " + width + " x " + height);
+
+        Layout layout = new Layout(width, height);
+
+        if (channel.size() < layout.size)
+            throw new IOException("Truncated triangle grid file");
+
+        return layout;
+    }
+
+    /** Edge bits are indexed node * 3 + edgeIndex as an int, by GridState and MappedTriangleGrid */
+    private static boolean isSupportedSize(int width, int height) {
+        return (long) width * height * 3 <= Integer.MAX_VALUE;
+    }
+
+    private static ByteBuffer mapSection(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void writeLongs(FileChannel channel, long position, long[] values) throws IOException {
+        int perWindow = WINDOW_SIZE / Long.BYTES;
+
+        for (int start = 0; start < values.length; start += perWindow) {
+            int count = Math.min(perWindow, values.length - start);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position + (long) start * Long.BYTES, (long) count * Long.BYTES);
+            buffer.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(values, start, count);
+        }
+    }
+
+    private static void writeBytes(FileChannel channel, long position, byte[] values) throws IOException {
+        for (int start = 0; start < values.length; start += WINDOW_SIZE) {
+            int count = Math.min(WINDOW_SIZE, values.length - start);
+            channel.map(FileChannel.MapMode.READ_WRITE, position + start, count).put(values, start, count);
+        }
+    }
+
+    private static void readLongs(FileChannel channel, long position, long[] values) throws IOException {
+        int perWindow = WINDOW_SIZE / Long.BYTES;
+
+        for (int start = 0; start < values.length; start += perWindow) {
+            int count = Math.min(perWindow, values.length - start);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position + (long) start * Long.BYTES, (long) count * Long.BYTES);
+            buffer.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(values, start, count);
+        }
+    }
+
+    private static void readBytes(FileChannel channel, long position, byte[] values) throws IOException {
+        for (int start = 0; start < values.length; start += WINDOW_SIZE) {
+            int count = Math.min(WINDOW_SIZE, values.length - start);
+            channel.map(FileChannel.MapMode.READ_ONLY, position + start, count).get(values, start, count);
+        }
+    }
+
+    /** Section offsets of a file holding a grid of the given size */
+    private static class Layout {
+        private final int width, height;
+        private final long edgeOffset, flagsOffset, vertexOffset, faceOffset, size;
+
+        private Layout(int width, int height) {
+            this.width = width;
+            this.height = height;
+            long nodeCount = (long) width * height;
+            edgeOffset = HEADER_SIZE;
+            flagsOffset = edgeOffset + (long) GridState.edgeWordCount((int) nodeCount) * Long.BYTES;
+            vertexOffset = flagsOffset + nodeCount;
+            faceOffset = vertexOffset + nodeCount;
+            size = faceOffset + nodeCount * 2;
+        }
+    }
+}
@@ -1,6 +1,44 @@
 package trianglegrid.grid;
 
-import java.util.Random;
-
+/** Flyweight view of the vertex stored at (x, y) of a TriangleGrid. */
 public class Vertex {
+    private final AbstractTriangleGrid grid;
+    private final int x, y;
+
+    Vertex(AbstractTriangleGrid grid, int x, int y) {
+        this.grid = grid;
+        this.x = x;
+        this.y = y;
+    }
+
+    /** Value (0 - 255) held by the vertex */
+    public int getValue() {
+        return grid.getVertexValue(x, y);
+    }
+
+    public void setValue(int value) {
+        grid.setVertexValue(x, y, value);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Vertex))
+            return false;
+
+        Vertex other = (Vertex) o;
+        return grid == other.grid && x == other.x && y == other.y;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
 }
@@ -0,0 +1,79 @@
+package trianglegrid.path;
+
+import trianglegrid.grid.AbstractTriangleGrid;
+
+/** Cost of travelling along an edge for a PathFinder. */
+@FunctionalInterface
+public interface EdgeCost {
+    /** Cost of the edge (0 - 2) owned by the node at (x, y). Negative or infinite if the edge cannot be crossed. */
+    double cost(AbstractTriangleGrid grid, int x, int y, int edgeIndex);
+
+    /** Lower bound of any passable edge cost, used to scale the A* heuristic. 0 makes A* behave as Dijkstra. */
+    default double getMinimumCost() {
+        return 0;
+    }
+
+    /** Every edge costs 1 */
+    static EdgeCost uniform() {
+        return new EdgeCost() {
+            public double cost(AbstractTriangleGrid grid, int x, int y, int edgeIndex) {
+                return 1;
+            }
+
+            public double getMinimumCost() {
+                return 1;
+            }
+        };
+    }
+
+    /** Edges with the given binary value cost 1, the rest are impassable */
+    static EdgeCost edgeValue(boolean passableValue) {
+        return new EdgeCost() {
+            public double cost(AbstractTriangleGrid grid, int x, int y, int edgeIndex) {
+                return grid.getEdgeValue(x, y, edgeIndex) == passableValue ? 1 : Double.POSITIVE_INFINITY;
+            }
+
+            public double getMinimumCost() {
+                return 1;
+            }
+        };
+    }
+
+    /** Edges accepted by the predicate cost 1, the rest are impassable */
+    static EdgeCost passable(EdgePredicate predicate) {
+        return new EdgeCost() {
+            public double cost(AbstractTriangleGrid grid, int x, int y, int edgeIndex) {
+                return predicate.test(x, y, edgeIndex, grid.getEdgeValue(x, y, edgeIndex)) ? 1 : Double.POSITIVE_INFINITY;
+            }
+
+            public double getMinimumCost() {
+                return 1;
+            }
+        };
+    }
+
+    /** Edge costs from a weight function, which must never return less than minimumCost for a passable edge */
+    static EdgeCost weighted(EdgeWeight weight, double minimumCost) {
+        return new EdgeCost() {
+            public double cost(AbstractTriangleGrid grid, int x, int y, int edgeIndex) {
+                return weight.weight(x, y, edgeIndex, grid.getEdgeValue(x, y, edgeIndex));
+            }
+
+            public double getMinimumCost() {
+                return minimumCost;
+            }
+        };
+    }
+
+    /** Accepts an edge from its position and binary value, so no Edge view is allocated per relaxation */
+    @FunctionalInterface
+    interface EdgePredicate {
+        boolean test(int x, int y, int edgeIndex, boolean value);
+    }
+
+    /** Weight of an edge from its position and binary value, so no Edge view is allocated per relaxation */
+    @FunctionalInterface
+    interface EdgeWeight {
+        double weight(int x, int y, int edgeIndex, boolean value);
+    }
+}
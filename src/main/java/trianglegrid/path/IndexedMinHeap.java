@@ -0,0 +1,106 @@
+package trianglegrid.path;
+
+import java.util.Arrays;
+
+/** Binary min heap of node indices keyed by double, with decrease-key through a node to heap position table.
+ *  Equal keys are ordered by a secondary tie break key, lowest first.
+ *  Backing arrays are kept between searches so a warmed up heap does not allocate. */
+final class IndexedMinHeap {
+    private int[] nodes = new int[1024];
+    private double[] keys = new double[1024];
+    private double[] tieBreaks = new double[1024];
+    /** Heap position of each node, -1 when not queued */
+    private final int[] positions;
+    private int size;
+
+    IndexedMinHeap(int nodeCount) {
+        positions = new int[nodeCount];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++)
+            positions[nodes[i]] = -1;
+
+        size = 0;
+    }
+
+    /** Queue a node, or lower its key if already queued with a higher one */
+    void insertOrDecrease(int node, double key, double tieBreak) {
+        int position = positions[node];
+
+        if (position < 0) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+                tieBreaks = Arrays.copyOf(tieBreaks, size * 2);
+            }
+
+            position = size++;
+        } else if (key >= keys[position]) {
+            return;
+        }
+
+        siftUp(position, node, key, tieBreak);
+    }
+
+    /** Remove and return the node with the lowest key */
+    int poll() {
+        int first = nodes[0];
+        positions[first] = -1;
+        size--;
+
+        if (size > 0)
+            siftDown(0, nodes[size], keys[size], tieBreaks[size]);
+
+        return first;
+    }
+
+    private void siftUp(int position, int node, double key, double tieBreak) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+
+            if (!less(key, tieBreak, keys[parent], tieBreaks[parent]))
+                break;
+
+            place(position, nodes[parent], keys[parent], tieBreaks[parent]);
+            position = parent;
+        }
+
+        place(position, node, key, tieBreak);
+    }
+
+    private void siftDown(int position, int node, double key, double tieBreak) {
+        int half = size >>> 1;
+
+        while (position < half) {
+            int child = 2 * position + 1;
+
+            if (child + 1 < size && less(keys[child + 1], tieBreaks[child + 1], keys[child], tieBreaks[child]))
+                child++;
+
+            if (!less(keys[child], tieBreaks[child], key, tieBreak))
+                break;
+
+            place(position, nodes[child], keys[child], tieBreaks[child]);
+            position = child;
+        }
+
+        place(position, node, key, tieBreak);
+    }
+
+    private static boolean less(double key, double tieBreak, double otherKey, double otherTieBreak) {
+        return key < otherKey || (key == otherKey && tieBreak < otherTieBreak);
+    }
+
+    private void place(int position, int node, double key, double tieBreak) {
+        nodes[position] = node;
+        keys[position] = key;
+        tieBreaks[position] = tieBreak;
+        positions[node] = position;
+    }
+}
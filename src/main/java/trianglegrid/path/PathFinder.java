@@ -0,0 +1,220 @@
+package trianglegrid.path;
+
+import trianglegrid.coordinates.PackedCoordinate;
+import trianglegrid.grid.AbstractTriangleGrid;
+
+import java.util.Arrays;
+
+/** Shortest paths between vertices along grid edges: A*, Dijkstra and multi-source flow fields.
+ *  Search state lives in arrays sized to the grid that are reused between queries, so a PathFinder does not allocate
+ *  once warmed up. It is not thread safe, use one PathFinder per thread. */
+public class PathFinder {
+    /** Offset of the neighbour in each direction (0 - 5), for even rows then odd rows */
+    private static final int[][] NEIGHBOUR_X = {{0, 1, 1, 1, 0, -1}, {-1, 0, 1, 0, -1, -1}};
+    private static final int[] NEIGHBOUR_Y = {-1, -1, 0, 1, 1, 0};
+
+    private final AbstractTriangleGrid grid;
+    private final EdgeCost edgeCost;
+    private final int width;
+    private final IndexedMinHeap open;
+    /** Cost from the nearest source, valid where visited matches the current search */
+    private final double[] distance;
+    /** Direction (0 - 5) from each reached vertex to the previous vertex on its path, -1 at a source */
+    private final byte[] parentDirection;
+    private final int[] visited;
+    private int search;
+    private int lastGoal = -1;
+
+    public PathFinder(AbstractTriangleGrid grid, EdgeCost edgeCost) {
+        this.grid = grid;
+        this.edgeCost = edgeCost;
+        width = grid.getWidth();
+        int nodeCount = Math.multiplyExact(width, grid.getHeight());
+        open = new IndexedMinHeap(nodeCount);
+        distance = new double[nodeCount];
+        parentDirection = new byte[nodeCount];
+        visited = new int[nodeCount];
+    }
+
+    /** A* search between two vertices, returning the path cost or infinity if the goal cannot be reached.
+     *  The path can then be read with getPath. */
+    public double findPath(int startX, int startY, int goalX, int goalY) {
+        if (!grid.isInBounds(startX, startY) || !grid.isInBounds(goalX, goalY))
+            return Double.POSITIVE_INFINITY;
+
+        begin();
+        int goal = goalY * width + goalX;
+        long goalCoordinate = PackedCoordinate.fromOffsetCoordinate(goalX, goalY);
+        double heuristicScale = edgeCost.getMinimumCost();
+        double heuristic = heuristicScale * distance(startX, startY, goalCoordinate);
+        addSource(startY * width + startX, heuristic, heuristic);
+
+        while (!open.isEmpty()) {
+            int node = open.poll();
+
+            if (node == goal) {
+                lastGoal = goal;
+                open.clear();
+                return distance[goal];
+            }
+
+            expand(node, Double.POSITIVE_INFINITY, goalCoordinate, heuristicScale);
+        }
+
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /** A* search between two packed vertex coordinates, see findPath(int, int, int, int) */
+    public double findPath(long start, long goal) {
+        return findPath(PackedCoordinate.getX(start), PackedCoordinate.getY(start),
+                PackedCoordinate.getX(goal), PackedCoordinate.getY(goal));
+    }
+
+    /** Dijkstra search from a single vertex to every vertex it can reach */
+    public void computeDistances(int startX, int startY) {
+        begin();
+
+        if (grid.isInBounds(startX, startY))
+            addSource(startY * width + startX, 0, 0);
+
+        flood(Double.POSITIVE_INFINITY);
+    }
+
+    /** Dijkstra search from every source at once, stopping at maxCost. Afterwards getFlowDirection at any reached vertex
+     *  points one step along the cheapest route towards its nearest source. */
+    public void computeFlowField(long[] sources, int sourceCount, double maxCost) {
+        begin();
+
+        for (int i = 0; i < sourceCount; i++) {
+            int x = PackedCoordinate.getX(sources[i]);
+            int y = PackedCoordinate.getY(sources[i]);
+
+            if (grid.isInBounds(x, y))
+                addSource(y * width + x, 0, 0);
+        }
+
+        flood(maxCost);
+    }
+
+    /** Cost of the cheapest path from the last search's sources, infinity if not reached */
+    public double getDistance(int x, int y) {
+        int node = y * width + x;
+        return visited[node] == search ? distance[node] : Double.POSITIVE_INFINITY;
+    }
+
+    /** Direction (0 - 5) of the next step towards the last search's nearest source, -1 at a source or if not reached */
+    public int getFlowDirection(int x, int y) {
+        int node = y * width + x;
+        return visited[node] == search ? parentDirection[node] : -1;
+    }
+
+    /** Number of vertices on the path found by the last successful findPath, including both ends. 0 if none. */
+    public int getPathLength() {
+        if (lastGoal < 0)
+            return 0;
+
+        int length = 1;
+        int node = lastGoal;
+
+        while (parentDirection[node] >= 0) {
+            node = neighbourIndex(node, parentDirection[node]);
+            length++;
+        }
+
+        return length;
+    }
+
+    /** Copy the path found by the last successful findPath into out as packed coordinates, start first.
+     *  out must hold at least getPathLength() entries. Returns the number of entries written. */
+    public int getPath(long[] out) {
+        int length = getPathLength();
+        int node = lastGoal;
+
+        for (int i = length - 1; i >= 0; i--) {
+            out[i] = PackedCoordinate.fromOffsetCoordinate(node % width, node / width);
+
+            if (i > 0)
+                node = neighbourIndex(node, parentDirection[node]);
+        }
+
+        return length;
+    }
+
+    public AbstractTriangleGrid getGrid() {
+        return grid;
+    }
+
+    private void begin() {
+        open.clear();
+        lastGoal = -1;
+
+        //stamps wrap after 4 billion searches, clear them rather than mistake old entries for current ones
+        if (++search == 0) {
+            Arrays.fill(visited, 0);
+            search = 1;
+        }
+    }
+
+    private void addSource(int node, double priority, double heuristic) {
+        visited[node] = search;
+        distance[node] = 0;
+        parentDirection[node] = -1;
+        open.insertOrDecrease(node, priority, heuristic);
+    }
+
+    private void flood(double maxCost) {
+        while (!open.isEmpty())
+            expand(open.poll(), maxCost, 0, 0);
+    }
+
+    /** Relax the edges around a settled vertex. The heuristic is the lattice distance to the goal scaled by the minimum
+     *  edge cost, which never overestimates since each edge moves at most one step closer. */
+    private void expand(int node, double maxCost, long goalCoordinate, double heuristicScale) {
+        int x = node % width;
+        int y = node / width;
+        int parity = y & 1;
+        double nodeDistance = distance[node];
+
+        for (int direction = 0; direction < 6; direction++) {
+            int neighbourX = x + NEIGHBOUR_X[parity][direction];
+            int neighbourY = y + NEIGHBOUR_Y[direction];
+            double cost;
+
+            //edges in directions 3 - 5 belong to the neighbour
+            if (direction < 3)
+                cost = grid.hasEdge(x, y, direction) ? edgeCost.cost(grid, x, y, direction) : Double.POSITIVE_INFINITY;
+            else
+                cost = grid.hasEdge(neighbourX, neighbourY, direction - 3)
+                        ? edgeCost.cost(grid, neighbourX, neighbourY, direction - 3) : Double.POSITIVE_INFINITY;
+
+            if (!(cost >= 0 && cost < Double.POSITIVE_INFINITY))
+                continue;
+
+            double neighbourDistance = nodeDistance + cost;
+
+            if (neighbourDistance > maxCost)
+                continue;
+
+            int neighbour = neighbourY * width + neighbourX;
+
+            if (visited[neighbour] != search || neighbourDistance < distance[neighbour]) {
+                visited[neighbour] = search;
+                distance[neighbour] = neighbourDistance;
+                parentDirection[neighbour] = (byte) ((direction + 3) % 6);
+                double heuristic = heuristicScale == 0 ? 0 : heuristicScale * distance(neighbourX, neighbourY, goalCoordinate);
+                //among equal estimates prefer the vertex closest to the goal, otherwise open lattices expand a whole lens of ties
+                open.insertOrDecrease(neighbour, neighbourDistance + heuristic, heuristic);
+            }
+        }
+    }
+
+    private static int distance(int x, int y, long coordinate) {
+        return PackedCoordinate.distance(PackedCoordinate.fromOffsetCoordinate(x, y), coordinate);
+    }
+
+    private int neighbourIndex(int node, int direction) {
+        int y = node / width;
+        int x = node % width;
+        return (y + NEIGHBOUR_Y[direction]) * width + x + NEIGHBOUR_X[y & 1][direction];
+    }
+}
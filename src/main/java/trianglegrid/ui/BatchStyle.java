@@ -0,0 +1,32 @@
+package trianglegrid.ui;
+
+import java.awt.*;
+
+/** Paint and stroke shared by every element in a batch drawn by BatchedGridRenderer.
+ *  Styles are compared by identity, so create them once and reuse them rather than creating one per element. */
+public class BatchStyle {
+    private static final Stroke DEFAULT_STROKE = new BasicStroke(1.0f);
+
+    /** Paint used to fill the shapes, null for no fill */
+    public final Paint fill;
+    /** Paint used to outline the shapes, null for no outline */
+    public final Paint outline;
+    /** Stroke used for the outline */
+    public final Stroke stroke;
+
+    public BatchStyle(Paint fill, Paint outline, Stroke stroke) {
+        this.fill = fill;
+        this.outline = outline;
+        this.stroke = stroke;
+    }
+
+    /** Filled shapes with no outline */
+    public static BatchStyle filled(Paint fill) {
+        return new BatchStyle(fill, null, DEFAULT_STROKE);
+    }
+
+    /** Outlined shapes (or lines) with no fill */
+    public static BatchStyle stroked(Paint outline, Stroke stroke) {
+        return new BatchStyle(null, outline, stroke);
+    }
+}
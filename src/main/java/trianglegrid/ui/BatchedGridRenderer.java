@@ -0,0 +1,261 @@
+package trianglegrid.ui;
+
+import trianglegrid.grid.AbstractTriangleGrid;
+import trianglegrid.grid.Edge;
+import trianglegrid.grid.GridGeometry;
+import trianglegrid.grid.TriangleFace;
+import trianglegrid.grid.Vertex;
+
+import java.awt.*;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.util.LinkedHashMap;
+
+/** Renderer that gathers visible elements sharing a BatchStyle into Path2D batches, drawing each batch with one fill
+ *  and one stroke once it holds getMaxBatchSize elements, and the remainder at the end of each layer.
+ *  Subclasses choose a style for each element instead of drawing it, returning null leaves the element undrawn. */
+public abstract class BatchedGridRenderer extends TriangleGridRenderer {
+    /** Default number of elements per batch. The software pipeline rasterizes large paths far slower per element than
+     *  small ones: a 1000 x 1000 frame of BatchedDemoGridRender at edge length 20 took about 30ms with batches of 16,
+     *  60ms with 64, 340ms with one batch per style per layer and 75ms with single elements, against 72ms for
+     *  DemoGridRender. See RenderBenchmark. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 16;
+
+    /** Radius in pixels of the circle drawn at each vertex, 0 to skip vertices */
+    private final double vertexRadius;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    /** Half the widest outline of the styles used so far, how far strokes reach past the shapes they outline */
+    private double strokeMargin;
+    /** Batches of the current layer, in order of first use */
+    private final LinkedHashMap<BatchStyle, Batch> batches = new LinkedHashMap<>();
+    /** Reused vertex shape */
+    private final Ellipse2D.Double vertexShape = new Ellipse2D.Double();
+
+    public BatchedGridRenderer(AbstractTriangleGrid grid, int canvasWidthPixels, int canvasHeightPixels, int edgeLength, double vertexRadius) {
+        super(grid, canvasWidthPixels, canvasHeightPixels, edgeLength);
+        this.vertexRadius = vertexRadius;
+    }
+
+    /** Style of the face owned by the node at offset coordinate (x, y). null to skip the face. */
+    protected abstract BatchStyle faceStyle(int x, int y, boolean pointing);
+
+    /** Style of the edge (0 - 2) owned by the node at offset coordinate (x, y). null to skip the edge. */
+    protected abstract BatchStyle edgeStyle(int x, int y, int edgeIndex);
+
+    /** Style of the vertex at offset coordinate (x, y). null to skip the vertex. */
+    protected abstract BatchStyle vertexStyle(int x, int y);
+
+    //elements are drawn in batches from their styles, never one at a time
+    @Override
+    protected final void drawEdge(Graphics2D g2d, Edge edge, double edgeFinishX, double edgeFinishY) {
+    }
+
+    @Override
+    protected final void drawFace(Graphics2D g2d, TriangleFace face, Shape triangleShape) {
+    }
+
+    @Override
+    protected final void drawVertex(Graphics2D g2d, Vertex vertex) {
+    }
+
+    @Override
+    public void drawGrid(Graphics2D g2d, double offsetX, double offsetY) {
+        // 1) Calculate the range of rows and columns that are visible
+        // 2) For each layer, append every visible element to the path of its style
+        // 3) Draw each batch as it fills, and any remainder at the end of the layer
+        beginFrame();
+
+        try {
+            updateVisibleRange(g2d, offsetX, offsetY);
+
+            if (drawLevelOfDetail(g2d, offsetX, offsetY))
+                return;
+
+            for (int layer = FACE_LAYER; layer <= VERTEX_LAYER; layer++) {
+                if (layer == VERTEX_LAYER && vertexRadius <= 0)
+                    continue;
+
+                appendLayer(g2d, offsetX, offsetY, layer);
+                drawBatches(g2d);
+            }
+
+            if (getCoordinateOverlay())
+                drawLayer(g2d, offsetX, offsetY, COORDINATE_LAYER);
+        } finally {
+            endFrame();
+        }
+    }
+
+    private void appendLayer(Graphics2D g2d, double offsetX, double offsetY, int layer) {
+        AbstractTriangleGrid grid = getFrameGrid();
+        GridGeometry geometry = getGeometry();
+        Point2D[] hexagonVertices = geometry.hexagon.vertices;
+
+        for (int y = minVisibleRow; y <= maxVisibleRow; y++) {
+            //screen position of the first vertex in the row
+            double screenX = geometry.offsetToScreenX(minVisibleColumn, y) - offsetX;
+            double screenY = geometry.offsetToScreenY(y) - offsetY;
+
+            for (int x = minVisibleColumn; x <= maxVisibleColumn; x++) {
+                switch (layer) {
+                    case FACE_LAYER:
+                        if (grid.hasFace(x, y, TriangleFace.POINTY_UP))
+                            appendTriangle(g2d, faceStyle(x, y, TriangleFace.POINTY_UP), screenX, screenY, hexagonVertices[0], hexagonVertices[1]);
+                        if (grid.hasFace(x, y, TriangleFace.POINTY_DOWN))
+                            appendTriangle(g2d, faceStyle(x, y, TriangleFace.POINTY_DOWN), screenX, screenY, hexagonVertices[3], hexagonVertices[4]);
+                        break;
+                    case EDGE_LAYER:
+                        for (int edgeIndex = 0; edgeIndex < 3; edgeIndex++) {
+                            if (grid.hasEdge(x, y, edgeIndex))
+                                appendEdge(g2d, edgeStyle(x, y, edgeIndex), screenX, screenY, hexagonVertices[edgeIndex]);
+                        }
+                        break;
+                    case VERTEX_LAYER:
+                        if (grid.isInBounds(x, y))
+                            appendVertex(g2d, vertexStyle(x, y), screenX, screenY);
+                        break;
+                }
+
+                screenX += geometry.columnSpacing;
+            }
+        }
+    }
+
+    private void appendTriangle(Graphics2D g2d, BatchStyle style, double screenX, double screenY, Point2D vertexB, Point2D vertexC) {
+        if (style == null)
+            return;
+
+        Batch batch = getBatch(style);
+        batch.path.moveTo(screenX, screenY);
+        batch.path.lineTo(screenX + vertexB.getX(), screenY + vertexB.getY());
+        batch.path.lineTo(screenX + vertexC.getX(), screenY + vertexC.getY());
+        batch.path.closePath();
+        elementAdded(g2d, style, batch);
+    }
+
+    private void appendEdge(Graphics2D g2d, BatchStyle style, double screenX, double screenY, Point2D edgeFinish) {
+        if (style == null)
+            return;
+
+        Batch batch = getBatch(style);
+        double finishX = screenX + edgeFinish.getX();
+        double finishY = screenY + edgeFinish.getY();
+
+        if (style.stroke instanceof BasicStroke basicStroke && basicStroke.getDashArray() == null)
+            appendWidenedLine(batch.widenedPath, basicStroke, screenX, screenY, finishX, finishY);
+        else {
+            batch.path.moveTo(screenX, screenY);
+            batch.path.lineTo(finishX, finishY);
+        }
+
+        elementAdded(g2d, style, batch);
+    }
+
+    private void appendVertex(Graphics2D g2d, BatchStyle style, double screenX, double screenY) {
+        if (style == null)
+            return;
+
+        Batch batch = getBatch(style);
+        vertexShape.setFrame(screenX - vertexRadius, screenY - vertexRadius, vertexRadius * 2, vertexRadius * 2);
+        batch.path.append(vertexShape, false);
+        elementAdded(g2d, style, batch);
+    }
+
+    /** Append a line as the quadrilateral a BasicStroke would cover, so it can be filled along with every other line
+     *  in the batch. Stroking a path of wide lines is far slower than filling the equivalent outline. */
+    private static void appendWidenedLine(Path2D.Float path, BasicStroke stroke, double startX, double startY, double finishX, double finishY) {
+        double halfWidth = stroke.getLineWidth() / 2;
+        double length = Math.hypot(finishX - startX, finishY - startY);
+
+        if (length == 0)
+            return;
+
+        //unit vector along the line and its normal, scaled to half the line width
+        double alongX = (finishX - startX) / length * halfWidth;
+        double alongY = (finishY - startY) / length * halfWidth;
+        double normalX = -alongY;
+        double normalY = alongX;
+
+        //butt caps end at the line ends, other caps are approximated by a square cap
+        if (stroke.getEndCap() == BasicStroke.CAP_BUTT) {
+            alongX = 0;
+            alongY = 0;
+        }
+
+        path.moveTo(startX - alongX + normalX, startY - alongY + normalY);
+        path.lineTo(finishX + alongX + normalX, finishY + alongY + normalY);
+        path.lineTo(finishX + alongX - normalX, finishY + alongY - normalY);
+        path.lineTo(startX - alongX - normalX, startY - alongY - normalY);
+        path.closePath();
+    }
+
+    private Batch getBatch(BatchStyle style) {
+        Batch batch = batches.get(style);
+
+        if (batch == null) {
+            batch = new Batch();
+            batches.put(style, batch);
+
+            if (style.outline != null && style.stroke instanceof BasicStroke basicStroke)
+                strokeMargin = Math.max(strokeMargin, basicStroke.getLineWidth() / 2);
+        }
+
+        return batch;
+    }
+
+    /** Draw the batch once it is full */
+    private void elementAdded(Graphics2D g2d, BatchStyle style, Batch batch) {
+        if (++batch.size >= maxBatchSize)
+            drawBatch(g2d, style, batch);
+    }
+
+    private void drawBatches(Graphics2D g2d) {
+        for (var entry : batches.entrySet())
+            drawBatch(g2d, entry.getKey(), entry.getValue());
+    }
+
+    /** Draw and empty a batch, the paths keep their capacity so a steady state frame reuses the same storage */
+    private void drawBatch(Graphics2D g2d, BatchStyle style, Batch batch) {
+        if (batch.size == 0)
+            return;
+
+        if (style.fill != null) {
+            g2d.setPaint(style.fill);
+            g2d.fill(batch.path);
+        }
+
+        if (style.outline != null) {
+            g2d.setPaint(style.outline);
+            g2d.setStroke(style.stroke);
+            g2d.draw(batch.path);
+            g2d.fill(batch.widenedPath);
+        }
+
+        batch.path.reset();
+        batch.widenedPath.reset();
+        batch.size = 0;
+    }
+
+    /** Covers vertices of vertexRadius and the outlines of every style drawn so far, which are only known once used */
+    @Override
+    public double getDrawMargin() {
+        return Math.max(super.getDrawMargin(), Math.max(getEdgeLength(), vertexRadius) + strokeMargin + 1);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /** Number of elements gathered before a batch is drawn. Hardware accelerated pipelines may prefer larger batches. */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    private static class Batch {
+        private final Path2D.Float path = new Path2D.Float();
+        /** Lines already widened to their stroke outline, filled with the outline paint */
+        private final Path2D.Float widenedPath = new Path2D.Float();
+        private int size;
+    }
+}
@@ -0,0 +1,207 @@
+package trianglegrid.ui;
+
+import trianglegrid.coordinates.FractionalCoordinate;
+import trianglegrid.grid.GridGeometry;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+
+/** Inertial panning and zooming of a TriangleGridRenderer camera.
+ *  Input may arrive on any thread and is only accumulated, the camera is moved by update, which should be called once per
+ *  frame from the thread drawing the grid. Released drags and wheel turns keep moving the camera and slow down with
+ *  friction. */
+public class CameraController {
+    /** Fraction of pan and zoom speed lost per second is 1 - exp(-FRICTION) */
+    public static final double FRICTION = 5.0;
+    /** Pan speed in pixels per second below which the camera stops */
+    private static final double STOP_SPEED = 10.0;
+    /** Zoom speed in log edge length per second below which zooming stops */
+    private static final double STOP_ZOOM_SPEED = 0.01;
+    /** Zoom speed added by one notch of the mouse wheel */
+    private static final double ZOOM_IMPULSE = 1.5;
+    /** A drag released after pausing this long does not fling the camera */
+    private static final long FLING_TIMEOUT_NANOS = 50_000_000L;
+
+    /** Default limits of the edge length in pixels when zooming */
+    public static final double DEFAULT_MIN_EDGE_LENGTH = 0.05;
+    public static final double DEFAULT_MAX_EDGE_LENGTH = 400;
+
+    private final TriangleGridRenderer renderer;
+    private double minEdgeLength = DEFAULT_MIN_EDGE_LENGTH;
+    private double maxEdgeLength = DEFAULT_MAX_EDGE_LENGTH;
+
+    //guarded by this
+    /** Pixels the camera has been dragged since the last update */
+    private double pendingPanX, pendingPanY;
+    /** Pan velocity in pixels per second */
+    private double velocityX, velocityY;
+    /** Zoom velocity in log edge length per second, around a point on the canvas */
+    private double zoomVelocity;
+    private double zoomFocusX, zoomFocusY;
+
+    public CameraController(TriangleGridRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    /** Move the camera by the given pixels on the next update, without inertia */
+    public synchronized void panBy(double dx, double dy) {
+        pendingPanX += dx;
+        pendingPanY += dy;
+    }
+
+    /** Keep the camera moving at the given velocity in pixels per second, slowing with friction */
+    public synchronized void fling(double velocityX, double velocityY) {
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+    }
+
+    /** Move the camera by about (dx, dy) pixels, starting quickly and slowing with friction until it stops.
+     *  Under exponential friction the distance travelled is the starting velocity divided by FRICTION. */
+    public synchronized void glideBy(double dx, double dy) {
+        velocityX = dx * FRICTION;
+        velocityY = dy * FRICTION;
+    }
+
+    /** Zoom in (positive) or out (negative) by a number of wheel notches, keeping the grid under the canvas point
+     *  (focusX, focusY) in place */
+    public synchronized void zoomBy(double notches, double focusX, double focusY) {
+        zoomVelocity += notches * ZOOM_IMPULSE;
+        zoomFocusX = focusX;
+        zoomFocusY = focusY;
+    }
+
+    /** Cancel any inertial movement */
+    public synchronized void stop() {
+        velocityX = 0;
+        velocityY = 0;
+        zoomVelocity = 0;
+    }
+
+    public synchronized boolean isMoving() {
+        return velocityX != 0 || velocityY != 0 || zoomVelocity != 0 || pendingPanX != 0 || pendingPanY != 0;
+    }
+
+    /** Advance the camera by the given time, returns whether it moved */
+    public synchronized boolean update(double seconds) {
+        boolean moved = false;
+        double decay = Math.exp(-FRICTION * seconds);
+
+        if (zoomVelocity != 0) {
+            double edgeLength = Math.max(minEdgeLength, Math.min(maxEdgeLength, renderer.getEdgeLength() * Math.exp(zoomVelocity * seconds)));
+            moved |= zoomAround(edgeLength, zoomFocusX, zoomFocusY);
+            zoomVelocity = Math.abs(zoomVelocity * decay) < STOP_ZOOM_SPEED ? 0 : zoomVelocity * decay;
+        }
+
+        //distance covered while the velocity decays over the step, so gliding is independent of the frame rate
+        double travel = seconds > 0 ? (1 - decay) / FRICTION : 0;
+        double dx = pendingPanX + velocityX * travel;
+        double dy = pendingPanY + velocityY * travel;
+        pendingPanX = 0;
+        pendingPanY = 0;
+        velocityX *= decay;
+        velocityY *= decay;
+
+        if (Math.hypot(velocityX, velocityY) < STOP_SPEED) {
+            velocityX = 0;
+            velocityY = 0;
+        }
+
+        if (dx != 0 || dy != 0) {
+            GridGeometry geometry = renderer.getGeometry();
+            FractionalCoordinate position = renderer.getPosition();
+            double screenX = geometry.gridToScreenX(position.a, position.b) + dx;
+            double screenY = geometry.gridToScreenY(position.b) + dy;
+            renderer.setPosition(geometry.screenToGridCoordinate(screenX, screenY));
+            moved = true;
+        }
+
+        return moved;
+    }
+
+    /** Change the edge length, moving the camera so the grid under the canvas point stays put */
+    private boolean zoomAround(double edgeLength, double focusX, double focusY) {
+        double scale = edgeLength / renderer.getEdgeLength();
+
+        if (scale == 1)
+            return false;
+
+        //screen positions scale with edge length, so the focused point moves from focus to focus * scale
+        FractionalCoordinate position = renderer.getPosition();
+        double focusScreenX = renderer.getOriginX(position) + focusX;
+        double focusScreenY = renderer.getOriginY(position) + focusY;
+        renderer.setEdgeLength(edgeLength);
+
+        GridGeometry geometry = renderer.getGeometry();
+        double cameraX = focusScreenX * scale - focusX + renderer.getRenderWidth() / 2;
+        double cameraY = focusScreenY * scale - focusY + renderer.getRenderHeight() / 2;
+        renderer.setPosition(geometry.screenToGridCoordinate(cameraX, cameraY));
+        return true;
+    }
+
+    public double getMinEdgeLength() {
+        return minEdgeLength;
+    }
+
+    public double getMaxEdgeLength() {
+        return maxEdgeLength;
+    }
+
+    /** Limits of the edge length in pixels when zooming */
+    public synchronized void setEdgeLengthRange(double minEdgeLength, double maxEdgeLength) {
+        this.minEdgeLength = minEdgeLength;
+        this.maxEdgeLength = maxEdgeLength;
+    }
+
+    /** Pan by dragging with any button and zoom with the mouse wheel over the component */
+    public void attach(Component component) {
+        MouseAdapter adapter = new MouseAdapter() {
+            private int lastX, lastY;
+            private long lastNanos;
+            /** Smoothed drag velocity in pixels per second */
+            private double dragVelocityX, dragVelocityY;
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                stop();
+                lastX = e.getX();
+                lastY = e.getY();
+                lastNanos = System.nanoTime();
+                dragVelocityX = 0;
+                dragVelocityY = 0;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                long now = System.nanoTime();
+                //dragging the grid right moves the camera left
+                int dx = lastX - e.getX();
+                int dy = lastY - e.getY();
+                double seconds = Math.max(1e-3, (now - lastNanos) / 1e9);
+                dragVelocityX = dragVelocityX * 0.5 + dx / seconds * 0.5;
+                dragVelocityY = dragVelocityY * 0.5 + dy / seconds * 0.5;
+                panBy(dx, dy);
+                lastX = e.getX();
+                lastY = e.getY();
+                lastNanos = now;
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (System.nanoTime() - lastNanos < FLING_TIMEOUT_NANOS)
+                    fling(dragVelocityX, dragVelocityY);
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                //wheel rotated towards the user zooms out
+                zoomBy(-e.getPreciseWheelRotation(), e.getX(), e.getY());
+            }
+        };
+
+        component.addMouseListener(adapter);
+        component.addMouseMotionListener(adapter);
+        component.addMouseWheelListener(adapter);
+    }
+}
@@ -0,0 +1,93 @@
+package trianglegrid.ui;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/** Draws "a,b" coordinate labels from pre-rendered glyph images, so no strings are built per label. */
+class CoordinateLabels {
+    private static final String GLYPHS = "0123456789-,";
+    private static final int MINUS = 10;
+    private static final int COMMA = 11;
+
+    private final BufferedImage[] glyphImages = new BufferedImage[GLYPHS.length()];
+    private final int[] glyphAdvances = new int[GLYPHS.length()];
+    private final int ascent;
+    private final int height;
+    /** Scratch space for the digits of a number, least significant first */
+    private final int[] digits = new int[20];
+
+    CoordinateLabels(Font font, Color color) {
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D scratchGraphics = scratch.createGraphics();
+        FontMetrics metrics = scratchGraphics.getFontMetrics(font);
+        scratchGraphics.dispose();
+        ascent = metrics.getAscent();
+        height = metrics.getHeight();
+
+        for (int glyph = 0; glyph < GLYPHS.length(); glyph++) {
+            char character = GLYPHS.charAt(glyph);
+            glyphAdvances[glyph] = metrics.charWidth(character);
+
+            BufferedImage image = new BufferedImage(Math.max(1, glyphAdvances[glyph]), metrics.getHeight(), BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g2d = image.createGraphics();
+            g2d.setFont(font);
+            g2d.setColor(color);
+            g2d.drawString(String.valueOf(character), 0, ascent);
+            g2d.dispose();
+            glyphImages[glyph] = image;
+        }
+    }
+
+    /** Draws "a,b" with its baseline starting at (x, y) */
+    void drawLabel(Graphics2D g2d, int a, int b, int x, int y) {
+        x = drawNumber(g2d, a, x, y);
+        x = drawGlyph(g2d, COMMA, x, y);
+        drawNumber(g2d, b, x, y);
+    }
+
+    /** Largest distance from the label position that a label of up to two numbers within +-maxMagnitude reaches */
+    int getMaxExtent(int labelX, int labelY, long maxMagnitude) {
+        int numberWidth = glyphAdvances[MINUS];
+
+        for (long magnitude = maxMagnitude; ; magnitude /= 10) {
+            int widestDigit = 0;
+
+            for (int digit = 0; digit < 10; digit++)
+                widestDigit = Math.max(widestDigit, glyphAdvances[digit]);
+
+            numberWidth += widestDigit;
+
+            if (magnitude < 10)
+                break;
+        }
+
+        int width = numberWidth * 2 + glyphAdvances[COMMA];
+        int horizontal = Math.max(Math.abs(labelX), Math.abs(labelX + width));
+        int vertical = Math.max(Math.abs(labelY - ascent), Math.abs(labelY - ascent + height));
+        return Math.max(horizontal, vertical);
+    }
+
+    private int drawNumber(Graphics2D g2d, long number, int x, int y) {
+        if (number < 0) {
+            x = drawGlyph(g2d, MINUS, x, y);
+            number = -number;
+        }
+
+        int digitCount = 0;
+
+        do {
+            digits[digitCount++] = (int) (number % 10);
+            number /= 10;
+        } while (number > 0);
+
+        while (digitCount > 0)
+            x = drawGlyph(g2d, digits[--digitCount], x, y);
+
+        return x;
+    }
+
+    private int drawGlyph(Graphics2D g2d, int glyph, int x, int y) {
+        g2d.drawImage(glyphImages[glyph], x, y - ascent, null);
+        return x + glyphAdvances[glyph];
+    }
+}
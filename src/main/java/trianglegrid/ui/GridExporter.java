@@ -0,0 +1,290 @@
+package trianglegrid.ui;
+
+import trianglegrid.grid.AbstractTriangleGrid;
+import trianglegrid.grid.GridGeometry;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/** Renders regions of a grid to images without a display, tile by tile on a pool of worker threads.
+ *  Each worker draws with its own renderer from the factory, so renderers need not be thread safe, but they must all
+ *  read the same grid. Every grid allows concurrent reads, but the grid must not be modified during an export: export a
+ *  GridSnapshot or a ConcurrentTriangleGrid to keep editing while exporting.
+ *  Regions are given in screen coordinates (see GridGeometry) at the edge length of the export. */
+public class GridExporter implements AutoCloseable {
+    public static final int DEFAULT_TILE_SIZE = 256;
+    /** Pixels in each of the two bands writePng renders into, bounding its memory to 8 * BAND_PIXELS bytes */
+    private static final int BAND_PIXELS = 1 << 22;
+    /** Widest image writePng accepts, a band must hold at least one row */
+    public static final int MAX_PNG_WIDTH = BAND_PIXELS;
+
+    private final Supplier<? extends TriangleGridRenderer> rendererFactory;
+    private final int tileSize;
+    private final int threadCount;
+    private final ExecutorService workers;
+    /** Renderer and tile image of each worker thread */
+    private final ThreadLocal<TileRenderer> tileRenderers;
+    /** ARGB colour of pixels not covered by the grid */
+    private volatile int background;
+
+    public GridExporter(Supplier<? extends TriangleGridRenderer> rendererFactory) {
+        this(rendererFactory, DEFAULT_TILE_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GridExporter(Supplier<? extends TriangleGridRenderer> rendererFactory, int tileSize, int threadCount) {
+        if (tileSize <= 0 || threadCount <= 0)
+            throw new IllegalArgumentException("Tile size and thread count must be positive");
+
+        this.rendererFactory = rendererFactory;
+        this.tileSize = tileSize;
+        this.threadCount = threadCount;
+        this.tileRenderers = ThreadLocal.withInitial(TileRenderer::new);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "grid-export-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Render a region into a single image. Memory grows with the region, see writePng for large exports. */
+    public BufferedImage render(double edgeLength, double minX, double minY, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        List<Callable<Void>> tiles = new ArrayList<>();
+
+        for (int tileY = 0; tileY < height; tileY += tileSize) {
+            for (int tileX = 0; tileX < width; tileX += tileSize) {
+                int x = tileX, y = tileY;
+                tiles.add(() -> {
+                    renderTile(edgeLength, minX + x, minY + y, Math.min(tileSize, width - x), Math.min(tileSize, height - y),
+                            pixels, y * width + x, width);
+                    return null;
+                });
+            }
+        }
+
+        invokeAll(tiles);
+        return image;
+    }
+
+    /** Render the whole grid into an image no larger than maxWidth x maxHeight */
+    public BufferedImage thumbnail(AbstractTriangleGrid grid, int maxWidth, int maxHeight) {
+        //grid spans width columns plus half a column for the odd rows, and height - 1 rows
+        double rowsPerEdge = Math.sqrt(3) / 2;
+        double edgeLength = Math.min(maxWidth / (grid.getWidth() + 0.5), maxHeight / (Math.max(1, grid.getHeight() - 1) * rowsPerEdge));
+        GridGeometry geometry = new GridGeometry(edgeLength);
+        double minX = -geometry.oddRowOffset;
+        int width = Math.max(1, Math.min(maxWidth, (int) Math.ceil((grid.getWidth() + 0.5) * geometry.columnSpacing)));
+        int height = Math.max(1, Math.min(maxHeight, (int) Math.ceil((grid.getHeight() - 1) * geometry.rowSpacing)));
+        return render(edgeLength, minX, 0, width, height);
+    }
+
+    /** Stream a region to out as a PNG, without closing it.
+     *  Only two bands of rows are held at once: the next is rendered in parallel while the last is encoded. Bands are a
+     *  row of tiles high, or fewer rows for wide images, so memory stays bounded whatever the width up to MAX_PNG_WIDTH. */
+    public void writePng(double edgeLength, double minX, double minY, int width, int height, OutputStream out) throws IOException {
+        if (width > MAX_PNG_WIDTH)
+            throw new IllegalArgumentException("Image width " + width + " exceeds the maximum of " + MAX_PNG_WIDTH + " pixels");
+
+        int bandHeight = Math.min(tileSize, BAND_PIXELS / width);
+        int bandCount = (height + bandHeight - 1) / bandHeight;
+        int[][] bands = {new int[width * bandHeight], new int[width * bandHeight]};
+        List<Future<Void>> rendering = List.of();
+
+        try (PngWriter writer = new PngWriter(out, width, height)) {
+            rendering = submitBand(edgeLength, minX, minY, width, height, 0, bandHeight, bands[0]);
+
+            for (int band = 0; band < bandCount; band++) {
+                await(rendering);
+                int[] pixels = bands[band & 1];
+
+                if (band + 1 < bandCount)
+                    rendering = submitBand(edgeLength, minX, minY, width, height, band + 1, bandHeight, bands[(band + 1) & 1]);
+
+                int rows = Math.min(bandHeight, height - band * bandHeight);
+
+                for (int row = 0; row < rows; row++)
+                    writer.writeRow(pixels, row * width);
+            }
+
+            writer.finish();
+        } finally {
+            //after a failed write the next band is still rendering, stop it rather than leave it running
+            for (Future<Void> future : rendering)
+                future.cancel(true);
+        }
+    }
+
+    /** Write a region as a pyramid of PNG tiles, directory/level/tileX_tileY.png.
+     *  Level 0 is drawn at the given edge length and each level above at half the scale of the one below.
+     *  Tiles are submitted as workers free up and written as they are rendered, so memory does not grow with the region. */
+    public void writePyramid(double edgeLength, double minX, double minY, int width, int height, int levelCount, Path directory) throws IOException {
+        //a couple of tiles queued per worker keeps them busy without holding a task for every tile
+        int maxInFlight = threadCount * 2;
+        ArrayDeque<Future<Void>> inFlight = new ArrayDeque<>();
+
+        for (int level = 0; level < levelCount; level++) {
+            double scale = 1.0 / (1 << level);
+            double levelEdgeLength = edgeLength * scale;
+            double levelMinX = minX * scale, levelMinY = minY * scale;
+            int levelWidth = Math.max(1, (int) Math.ceil(width * scale));
+            int levelHeight = Math.max(1, (int) Math.ceil(height * scale));
+            Path levelDirectory = directory.resolve(Integer.toString(level));
+            Files.createDirectories(levelDirectory);
+
+            for (int tileY = 0; tileY * tileSize < levelHeight; tileY++) {
+                for (int tileX = 0; tileX * tileSize < levelWidth; tileX++) {
+                    int x = tileX * tileSize, y = tileY * tileSize;
+                    int tileWidth = Math.min(tileSize, levelWidth - x), tileHeight = Math.min(tileSize, levelHeight - y);
+                    Path file = levelDirectory.resolve(tileX + "_" + tileY + ".png");
+
+                    if (inFlight.size() == maxInFlight)
+                        awaitOldest(inFlight);
+
+                    inFlight.add(workers.submit(() -> {
+                        TileRenderer tileRenderer = tileRenderers.get();
+                        tileRenderer.render(levelEdgeLength, levelMinX + x, levelMinY + y, tileWidth, tileHeight);
+
+                        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                            tileRenderer.writePng(tileWidth, tileHeight, out);
+                        }
+                        return null;
+                    }));
+                }
+            }
+        }
+
+        while (!inFlight.isEmpty())
+            awaitOldest(inFlight);
+    }
+
+    /** Wait for the oldest pyramid tile, cancelling the rest if it failed */
+    private static void awaitOldest(ArrayDeque<Future<Void>> inFlight) throws IOException {
+        try {
+            await(List.of(inFlight.poll()));
+        } catch (UncheckedIOException e) {
+            inFlight.forEach(future -> future.cancel(true));
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            inFlight.forEach(future -> future.cancel(true));
+            throw e;
+        }
+    }
+
+    /** Render one row of tiles into a band of width x bandHeight pixels */
+    private List<Future<Void>> submitBand(double edgeLength, double minX, double minY, int width, int height, int band, int bandHeight, int[] pixels) {
+        List<Future<Void>> futures = new ArrayList<>();
+        int y = band * bandHeight;
+        int tileHeight = Math.min(bandHeight, height - y);
+
+        for (int x = 0; x < width; x += tileSize) {
+            int tileX = x;
+            futures.add(workers.submit(() -> {
+                renderTile(edgeLength, minX + tileX, minY + y, Math.min(tileSize, width - tileX), tileHeight, pixels, tileX, width);
+                return null;
+            }));
+        }
+
+        return futures;
+    }
+
+    /** Render a tile on the calling worker and copy it into pixels at offset, rows stride apart */
+    private void renderTile(double edgeLength, double screenX, double screenY, int width, int height, int[] pixels, int offset, int stride) {
+        TileRenderer tileRenderer = tileRenderers.get();
+        tileRenderer.render(edgeLength, screenX, screenY, width, height);
+
+        for (int row = 0; row < height; row++)
+            System.arraycopy(tileRenderer.pixels, row * tileSize, pixels, offset + row * stride, width);
+    }
+
+    private void invokeAll(List<Callable<Void>> tasks) {
+        try {
+            await(workers.invokeAll(tasks));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Export interrupted");
+        }
+    }
+
+    /** Wait for every task, rethrowing the first failure */
+    private static void await(List<Future<Void>> futures) {
+        try {
+            for (Future<Void> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Export interrupted");
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+
+            if (e.getCause() instanceof IOException cause)
+                throw new UncheckedIOException(cause);
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public int getBackground() {
+        return background;
+    }
+
+    public void setBackground(int argb) {
+        this.background = argb;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /** Stops the worker threads, waiting for no tasks */
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /** A renderer and tileSize x tileSize image owned by one worker thread */
+    private class TileRenderer {
+        final TriangleGridRenderer renderer = rendererFactory.get();
+        final BufferedImage image = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+        final int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+        /** Draw the width x height region with screen position (screenX, screenY) at the top left of the image */
+        void render(double edgeLength, double screenX, double screenY, int width, int height) {
+            if (renderer.getEdgeLength() != edgeLength)
+                renderer.setEdgeLength(edgeLength);
+
+            Arrays.fill(pixels, background);
+            Graphics2D g2d = image.createGraphics();
+            g2d.setClip(0, 0, width, height);
+            renderer.drawGrid(g2d, screenX, screenY);
+            g2d.dispose();
+        }
+
+        void writePng(int width, int height, OutputStream out) throws IOException {
+            try (PngWriter writer = new PngWriter(out, width, height)) {
+                for (int row = 0; row < height; row++)
+                    writer.writeRow(pixels, row * tileSize);
+
+                writer.finish();
+            }
+        }
+    }
+}
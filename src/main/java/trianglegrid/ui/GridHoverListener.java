@@ -0,0 +1,14 @@
+package trianglegrid.ui;
+
+import trianglegrid.grid.PickResult;
+
+/** Notified on the event dispatch thread when the element under the mouse changes.
+ *  Picks are made off the event dispatch thread and coalesced to at most one per frame, so fast movement may skip elements. */
+public interface GridHoverListener {
+    /** The mouse moved onto a new element without a button held */
+    void elementHovered(PickResult element);
+
+    /** The mouse moved onto a new element with a button held */
+    default void elementDragged(PickResult element) {
+    }
+}
@@ -0,0 +1,237 @@
+package trianglegrid.ui;
+
+import trianglegrid.coordinates.FractionalCoordinate;
+import trianglegrid.grid.GridGeometry;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.awt.image.VolatileImage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/** Active rendering of a grid onto a Canvas at a fixed frame rate, on its own thread.
+ *  Each frame advances the CameraController, updates an offscreen copy of the frame and shows it through a BufferStrategy.
+ *  When the camera pans less than a tile between frames the previous frame is scrolled with copyArea and only the newly
+ *  exposed strips are drawn. A frame that finishes after the start of the next is counted as dropped, and the loop skips
+ *  ahead rather than trying to catch up. The canvas should be the renderer's render size. */
+public class GridRenderLoop implements Runnable {
+    /** Largest pan in pixels that scrolls the previous frame instead of redrawing it */
+    public static final int MAX_SCROLL_PIXELS = TileCache.DEFAULT_TILE_SIZE;
+
+    private final Canvas canvas;
+    private final TriangleGridRenderer renderer;
+    private final CameraController camera;
+    private final long framePeriodNanos;
+    private volatile Color background = Color.white;
+
+    private Thread thread;
+    private volatile boolean running;
+    /** Set to redraw the whole frame, after the grid or how it is drawn has changed. Consumed atomically by the loop
+     *  so an invalidate from another thread during a frame is redrawn by that frame or the next. */
+    private final AtomicBoolean invalid = new AtomicBoolean(true);
+
+    //only used on the loop thread
+    private VolatileImage frame;
+    private int frameOriginX, frameOriginY;
+    private GridGeometry frameGeometry;
+
+    private volatile long frameCount;
+    private volatile long droppedFrameCount;
+    private volatile long lastFrameNanos;
+
+    public GridRenderLoop(Canvas canvas, TriangleGridRenderer renderer, CameraController camera, int framesPerSecond) {
+        this.canvas = canvas;
+        this.renderer = renderer;
+        this.camera = camera;
+        this.framePeriodNanos = 1_000_000_000L / framesPerSecond;
+        canvas.setIgnoreRepaint(true);
+    }
+
+    public synchronized void start() {
+        if (running)
+            return;
+
+        running = true;
+        thread = new Thread(this, "grid-render-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Stop the loop and wait for the current frame to finish */
+    public void stop() throws InterruptedException {
+        Thread loopThread;
+
+        synchronized (this) {
+            running = false;
+            loopThread = thread;
+            thread = null;
+        }
+
+        if (loopThread != null && loopThread != Thread.currentThread())
+            loopThread.join();
+    }
+
+    /** Redraw the whole grid on the next frame instead of scrolling */
+    public void invalidate() {
+        invalid.set(true);
+    }
+
+    @Override
+    public void run() {
+        long deadline = System.nanoTime();
+        long lastUpdate = deadline;
+
+        while (running) {
+            long frameStart = System.nanoTime();
+            camera.update((frameStart - lastUpdate) / 1e9);
+            lastUpdate = frameStart;
+            renderFrame();
+            frameCount++;
+
+            long frameEnd = System.nanoTime();
+            lastFrameNanos = frameEnd - frameStart;
+            deadline += framePeriodNanos;
+
+            //a late frame uses up the slots it overran, skip them rather than rendering several frames back to back
+            if (frameEnd > deadline) {
+                long missed = (frameEnd - deadline) / framePeriodNanos + 1;
+                droppedFrameCount += missed;
+                deadline += missed * framePeriodNanos;
+            }
+
+            long wait;
+
+            while (running && (wait = deadline - System.nanoTime()) > 0)
+                LockSupport.parkNanos(wait);
+        }
+
+        if (frame != null)
+            frame.flush();
+    }
+
+    private void renderFrame() {
+        if (!canvas.isDisplayable() || canvas.getWidth() <= 0 || canvas.getHeight() <= 0)
+            return;
+
+        BufferStrategy strategy = canvas.getBufferStrategy();
+
+        if (strategy == null) {
+            canvas.createBufferStrategy(2);
+            return;
+        }
+
+        //whole pixel origin, so scrolled frames line up with the pixel grid
+        FractionalCoordinate position = renderer.getPosition();
+        int originX = (int) Math.floor(renderer.getOriginX(position));
+        int originY = (int) Math.floor(renderer.getOriginY(position));
+
+        do {
+            updateFrame(originX, originY);
+
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                g.drawImage(frame, 0, 0, null);
+                g.dispose();
+            } while (strategy.contentsRestored());
+
+            strategy.show();
+        } while (strategy.contentsLost() || frame.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    /** Bring the offscreen frame up to date with the camera, scrolling it when possible */
+    private void updateFrame(int originX, int originY) {
+        int width = renderer.getRenderWidth();
+        int height = renderer.getRenderHeight();
+        boolean redraw = invalid.getAndSet(false) || renderer.getGeometry() != frameGeometry;
+
+        GraphicsConfiguration configuration = canvas.getGraphicsConfiguration();
+        int status = frame == null ? VolatileImage.IMAGE_INCOMPATIBLE : frame.validate(configuration);
+
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE || frame.getWidth() != width || frame.getHeight() != height) {
+            if (frame != null)
+                frame.flush();
+
+            frame = configuration.createCompatibleVolatileImage(width, height);
+            frame.validate(configuration);
+            redraw = true;
+        } else if (status == VolatileImage.IMAGE_RESTORED) {
+            redraw = true;
+        }
+
+        int dx = originX - frameOriginX;
+        int dy = originY - frameOriginY;
+
+        if (Math.abs(dx) >= MAX_SCROLL_PIXELS || Math.abs(dy) >= MAX_SCROLL_PIXELS || Math.abs(dx) >= width || Math.abs(dy) >= height)
+            redraw = true;
+
+        if (!redraw && dx == 0 && dy == 0)
+            return;
+
+        frameGeometry = renderer.getGeometry();
+        frameOriginX = originX;
+        frameOriginY = originY;
+        Graphics2D g2d = frame.createGraphics();
+        //strips drawn this frame read the same grid state
+        renderer.beginFrame();
+
+        try {
+            if (redraw) {
+                drawRegion(g2d, 0, 0, width, height, originX, originY);
+                return;
+            }
+
+            //content moves opposite to the camera
+            g2d.copyArea(0, 0, width, height, -dx, -dy);
+
+            if (dx > 0)
+                drawRegion(g2d, width - dx, 0, dx, height, originX, originY);
+            else if (dx < 0)
+                drawRegion(g2d, 0, 0, -dx, height, originX, originY);
+
+            if (dy > 0)
+                drawRegion(g2d, 0, height - dy, width, dy, originX, originY);
+            else if (dy < 0)
+                drawRegion(g2d, 0, 0, width, -dy, originX, originY);
+        } finally {
+            renderer.endFrame();
+            g2d.dispose();
+
+            //the frame was lost while drawing, redraw it all rather than scroll what is left
+            if (frame.contentsLost())
+                invalid.set(true);
+        }
+    }
+
+    private void drawRegion(Graphics2D g2d, int x, int y, int width, int height, int originX, int originY) {
+        g2d.setClip(x, y, width, height);
+        g2d.setColor(background);
+        g2d.fillRect(x, y, width, height);
+        renderer.drawGrid(g2d, originX, originY);
+    }
+
+    public Color getBackground() {
+        return background;
+    }
+
+    public void setBackground(Color background) {
+        this.background = background;
+        invalidate();
+    }
+
+    /** Frames rendered since the loop started */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /** Frame slots missed because a frame took longer than the frame period */
+    public long getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
+    /** Time taken by the last frame in nanoseconds, including presenting it */
+    public long getLastFrameNanos() {
+        return lastFrameNanos;
+    }
+}
@@ -0,0 +1,138 @@
+package trianglegrid.ui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/** Minimal streaming PNG encoder for 8 bit RGBA images. Rows are filtered and deflated as they are written, so only
+ *  one row and one IDAT chunk are held at a time whatever the image size.
+ *  Must be closed, after finish or on failure, to release the native deflater. */
+class PngWriter implements Closeable {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    /** Colour type of 8 bit RGBA */
+    private static final int COLOR_TYPE_RGBA = 6;
+    /** Row filter predicting each byte from the same channel of the pixel to its left */
+    private static final int FILTER_SUB = 1;
+    private static final int IDAT_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final byte[] row;
+    private final byte[] compressed = new byte[IDAT_SIZE];
+    private int compressedLength;
+    private final CRC32 crc = new CRC32();
+    private int rowsWritten;
+
+    /** Writes the signature and header, rows must then be written top to bottom */
+    PngWriter(OutputStream out, int width, int height) throws IOException {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Image must not be empty: " + width + "x" + height);
+
+        this.out = out;
+        this.width = width;
+        this.height = height;
+        this.row = new byte[1 + width * 4];
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        writeInt(header, width);
+        writeInt(header, height);
+        header.write(8);
+        header.write(COLOR_TYPE_RGBA);
+        //compression, filter and interlace methods
+        header.write(0);
+        header.write(0);
+        header.write(0);
+
+        try {
+            out.write(SIGNATURE);
+            writeChunk("IHDR", header.toByteArray(), header.size());
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /** Write one row of width ARGB pixels starting at offset */
+    void writeRow(int[] pixels, int offset) throws IOException {
+        if (rowsWritten == height)
+            throw new IllegalStateException("All " + height + " rows written");
+
+        row[0] = FILTER_SUB;
+        int left = 0;
+
+        for (int i = 0; i < width; i++) {
+            int argb = pixels[offset + i];
+            int index = 1 + i * 4;
+            row[index] = (byte) ((argb >>> 16) - (left >>> 16));
+            row[index + 1] = (byte) ((argb >>> 8) - (left >>> 8));
+            row[index + 2] = (byte) (argb - left);
+            row[index + 3] = (byte) ((argb >>> 24) - (left >>> 24));
+            left = argb;
+        }
+
+        deflater.setInput(row);
+
+        while (!deflater.needsInput())
+            deflate();
+
+        rowsWritten++;
+    }
+
+    /** Flush the remaining compressed data and write the end chunk. Does not close the stream. */
+    void finish() throws IOException {
+        if (rowsWritten != height)
+            throw new IllegalStateException("Only " + rowsWritten + " of " + height + " rows written");
+
+        deflater.finish();
+
+        while (!deflater.finished())
+            deflate();
+
+        if (compressedLength > 0)
+            writeChunk("IDAT", compressed, compressedLength);
+
+        writeChunk("IEND", compressed, 0);
+        out.flush();
+    }
+
+    /** Release the deflater. Does not close the stream. */
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    /** Compress into the chunk buffer, writing an IDAT chunk whenever it fills */
+    private void deflate() throws IOException {
+        compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength, Deflater.NO_FLUSH);
+
+        if (compressedLength == compressed.length) {
+            writeChunk("IDAT", compressed, compressedLength);
+            compressedLength = 0;
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        writeInt(out, length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        writeInt(out, (int) crc.getValue());
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
@@ -0,0 +1,198 @@
+package trianglegrid.ui;
+
+import trianglegrid.grid.AbstractTriangleGrid;
+import trianglegrid.grid.GridGeometry;
+import trianglegrid.grid.TriangleFace;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/** Renderer that scan converts the face layer straight into the pixels of a BufferedImage, in parallel horizontal bands.
+ *  The vertex rows split the screen into strips, and along any scanline of a strip the faces alternate pointy down and
+ *  pointy up between boundaries that move half an edge per strip height. Each scanline is therefore written as a run
+ *  of spans, every pixel once, with face colours looked up once per strip.
+ *  Edges, vertices and the coordinate overlay are still drawn with Java2D by the usual draw methods. */
+public abstract class RasterGridRenderer extends TriangleGridRenderer {
+    /** Scanlines rasterized by each parallel task */
+    public static final int BAND_HEIGHT = 32;
+
+    /** Face layer of the current drawGrid call, grown as needed */
+    private BufferedImage faceImage;
+    private int[] facePixels;
+    /** Per band colour caches, reused between frames */
+    private Band[] bands = new Band[0];
+    /** Reused clip rectangle */
+    private final Rectangle clipBounds = new Rectangle();
+
+    public RasterGridRenderer(AbstractTriangleGrid grid, int canvasWidthPixels, int canvasHeightPixels, int edgeLength) {
+        super(grid, canvasWidthPixels, canvasHeightPixels, edgeLength);
+    }
+
+    /** ARGB colour of the face owned by the node at offset coordinate (x, y), 0 to leave it transparent.
+     *  Called from several threads at once, so must only read shared state. */
+    protected abstract int faceColor(int x, int y, boolean pointing);
+
+    /** Faces are rasterized from faceColor, never drawn one at a time */
+    @Override
+    protected final void drawFace(Graphics2D g2d, TriangleFace face, Shape triangleShape) {
+    }
+
+    @Override
+    public void drawGrid(Graphics2D g2d, double offsetX, double offsetY) {
+        // 1) Rasterize the faces under the clip bounds into the face image
+        // 2) Draw the face image, then the remaining layers with Java2D
+        beginFrame();
+
+        try {
+            updateVisibleRange(g2d, offsetX, offsetY);
+
+            if (drawLevelOfDetail(g2d, offsetX, offsetY))
+                return;
+
+            clipBounds.setBounds(0, 0, getRenderWidth(), getRenderHeight());
+            Rectangle clip = g2d.getClipBounds(clipBounds);
+
+            if (clip.isEmpty())
+                return;
+
+            ensureFaceImage(clip.width, clip.height);
+            drawFaces(facePixels, faceImage.getWidth(), clip.width, clip.height, offsetX + clip.x, offsetY + clip.y);
+            g2d.drawImage(faceImage, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+                    0, 0, clip.width, clip.height, null);
+
+            drawLayer(g2d, offsetX, offsetY, EDGE_LAYER);
+            drawLayer(g2d, offsetX, offsetY, VERTEX_LAYER);
+
+            if (getCoordinateOverlay())
+                drawLayer(g2d, offsetX, offsetY, COORDINATE_LAYER);
+        } finally {
+            endFrame();
+        }
+    }
+
+    /** Rasterize the faces into width x height ARGB pixels, rows stride apart, with screen position (offsetX, offsetY)
+     *  (see GridGeometry) at pixel (0, 0). Every pixel is written, those outside any face with 0. */
+    public void drawFaces(int[] pixels, int stride, int width, int height, double offsetX, double offsetY) {
+        int bandCount = (height + BAND_HEIGHT - 1) / BAND_HEIGHT;
+        ensureBands(bandCount);
+        AbstractTriangleGrid grid = getFrameGrid();
+        GridGeometry geometry = getGeometry();
+
+        IntStream.range(0, bandCount).parallel().forEach(band -> {
+            int minRow = band * BAND_HEIGHT;
+            int maxRow = Math.min(height, minRow + BAND_HEIGHT);
+            bands[band].rasterize(grid, geometry, pixels, stride, width, minRow, maxRow, offsetX, offsetY);
+        });
+    }
+
+    private void ensureFaceImage(int width, int height) {
+        if (faceImage != null && faceImage.getWidth() >= width && faceImage.getHeight() >= height)
+            return;
+
+        int imageWidth = Math.max(width, faceImage == null ? 0 : faceImage.getWidth());
+        int imageHeight = Math.max(height, faceImage == null ? 0 : faceImage.getHeight());
+        faceImage = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
+        facePixels = ((DataBufferInt) faceImage.getRaster().getDataBuffer()).getData();
+    }
+
+    private synchronized void ensureBands(int bandCount) {
+        if (bands.length >= bandCount)
+            return;
+
+        Band[] grown = Arrays.copyOf(bands, bandCount);
+
+        for (int band = bands.length; band < bandCount; band++)
+            grown[band] = new Band();
+
+        bands = grown;
+    }
+
+    /** Scanlines rasterized by one task, with the face colours of the strip it is in */
+    private class Band {
+        /** Colours of the pointy down faces of the vertex row above the strip, and the pointy up faces of the row below.
+         *  Index i holds the down face of column firstColumn + i and the up face to its right. */
+        private int[] downColors = new int[0];
+        private int[] upColors = new int[0];
+        private int cachedStrip;
+        private int cachedFirstColumn;
+        private int cachedColumnCount = -1;
+
+        void rasterize(AbstractTriangleGrid grid, GridGeometry geometry, int[] pixels, int stride, int width,
+                       int minRow, int maxRow, double offsetX, double offsetY) {
+            double columnSpacing = geometry.columnSpacing;
+            double rowSpacing = geometry.rowSpacing;
+            double halfColumn = geometry.oddRowOffset;
+            //columns needed to cover a scanline, with one spare either side
+            int columnCount = (int) Math.ceil(width / columnSpacing) + 3;
+            cachedColumnCount = -1;
+
+            for (int row = minRow; row < maxRow; row++) {
+                int rowStart = row * stride;
+                //sample at pixel centres
+                double screenY = row + 0.5 + offsetY;
+                int strip = (int) Math.floor(screenY / rowSpacing);
+                //depth (0 - 1) of the scanline within its strip
+                double depth = screenY / rowSpacing - strip;
+
+                if (strip < 0 || strip >= grid.getHeight() - 1) {
+                    Arrays.fill(pixels, rowStart, rowStart + width, 0);
+                    continue;
+                }
+
+                int parity = strip & 1;
+                //first column whose down face starts at least a column left of the scanline
+                int firstColumn = (int) Math.floor((offsetX + parity * halfColumn) / columnSpacing) - 1;
+
+                if (strip != cachedStrip || firstColumn != cachedFirstColumn || columnCount != cachedColumnCount)
+                    cacheColors(grid, strip, firstColumn, columnCount);
+
+                //pixel x of the vertex at the apex of the first down face
+                double apexX = firstColumn * columnSpacing - parity * halfColumn - offsetX - 0.5;
+                double spread = depth * halfColumn;
+                int pixel = 0;
+
+                for (int i = 0; i < columnCount && pixel < width; i++) {
+                    int downEnd = pixelBoundary(apexX + spread, width);
+                    Arrays.fill(pixels, rowStart + pixel, rowStart + Math.max(pixel, downEnd), downColors[i]);
+                    pixel = Math.max(pixel, downEnd);
+
+                    int upEnd = pixelBoundary(apexX + columnSpacing - spread, width);
+                    Arrays.fill(pixels, rowStart + pixel, rowStart + Math.max(pixel, upEnd), upColors[i]);
+                    pixel = Math.max(pixel, upEnd);
+                    apexX += columnSpacing;
+                }
+
+                if (pixel < width)
+                    Arrays.fill(pixels, rowStart + pixel, rowStart + width, 0);
+            }
+        }
+
+        /** First pixel whose centre lies right of a boundary, clamped to the scanline */
+        private int pixelBoundary(double boundary, int width) {
+            return (int) Math.max(0, Math.min(width, Math.ceil(boundary)));
+        }
+
+        private void cacheColors(AbstractTriangleGrid grid, int strip, int firstColumn, int columnCount) {
+            if (downColors.length < columnCount) {
+                downColors = new int[columnCount];
+                upColors = new int[columnCount];
+            }
+
+            //the up face right of down face (x, strip) is owned by node (x + 1 - parity, strip + 1)
+            int parity = strip & 1;
+
+            for (int i = 0; i < columnCount; i++) {
+                int x = firstColumn + i;
+                downColors[i] = grid.hasFace(x, strip, TriangleFace.POINTY_DOWN) ? faceColor(x, strip, TriangleFace.POINTY_DOWN) : 0;
+                upColors[i] = grid.hasFace(x + 1 - parity, strip + 1, TriangleFace.POINTY_UP) ? faceColor(x + 1 - parity, strip + 1, TriangleFace.POINTY_UP) : 0;
+            }
+
+            cachedStrip = strip;
+            cachedFirstColumn = firstColumn;
+            cachedColumnCount = columnCount;
+        }
+    }
+}
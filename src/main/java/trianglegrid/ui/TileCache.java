@@ -0,0 +1,215 @@
+package trianglegrid.ui;
+
+import trianglegrid.coordinates.FractionalCoordinate;
+import trianglegrid.grid.Edge;
+import trianglegrid.grid.GridGeometry;
+import trianglegrid.grid.TriangleFace;
+import trianglegrid.grid.Vertex;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/** Caches the output of a TriangleGridRenderer as fixed size tiles of screen space (see GridGeometry).
+ *  Tiles are reused while the camera pans and are only redrawn once invalidated. Any change to grid data, or to how the
+ *  renderer draws it, must be followed by an invalidate call covering the affected elements. */
+public class TileCache {
+    public static final int DEFAULT_TILE_SIZE = 256;
+    public static final int DEFAULT_MAX_TILES = 256;
+
+    private final TriangleGridRenderer renderer;
+    /** Length in pixels of a tile edge */
+    private final int tileSize;
+    /** Maximum number of tiles held before the least recently drawn is discarded */
+    private final int maxTiles;
+    /** Tiles in draw order, eldest first */
+    private final LinkedHashMap<Long, Tile> tiles = new LinkedHashMap<>(16, 0.75f, true);
+    /** Reused clip rectangle */
+    private final Rectangle clipBounds = new Rectangle();
+    /** Geometry the tiles were drawn with, tiles are redrawn when the renderer zooms */
+    private GridGeometry tileGeometry;
+
+    public TileCache(TriangleGridRenderer renderer) {
+        this(renderer, DEFAULT_TILE_SIZE, DEFAULT_MAX_TILES);
+    }
+
+    public TileCache(TriangleGridRenderer renderer, int tileSize, int maxTiles) {
+        this.renderer = renderer;
+        this.tileSize = tileSize;
+        this.maxTiles = maxTiles;
+    }
+
+    /** Draws the visible tiles centred on the renderer camera, rendering any that are missing or invalid.
+     *  Tiles are VolatileImages when a GraphicsConfiguration is given, otherwise BufferedImages. */
+    public void drawGrid(Graphics2D g2d, GraphicsConfiguration configuration) {
+        if (renderer.getGeometry() != tileGeometry) {
+            tileGeometry = renderer.getGeometry();
+            invalidateAll();
+        }
+
+        //whole pixel origin, so tiles line up with the pixel grid
+        FractionalCoordinate position = renderer.getPosition();
+        int originX = (int) Math.floor(renderer.getOriginX(position));
+        int originY = (int) Math.floor(renderer.getOriginY(position));
+
+        clipBounds.setBounds(0, 0, renderer.getRenderWidth(), renderer.getRenderHeight());
+        Rectangle clip = g2d.getClipBounds(clipBounds);
+
+        int minTileX = Math.floorDiv(clip.x + originX, tileSize);
+        int maxTileX = Math.floorDiv(clip.x + clip.width - 1 + originX, tileSize);
+        int minTileY = Math.floorDiv(clip.y + originY, tileSize);
+        int maxTileY = Math.floorDiv(clip.y + clip.height - 1 + originY, tileSize);
+
+        //tiles rendered this frame all read the same grid state
+        renderer.beginFrame();
+
+        try {
+            for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+                for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                    Tile tile = getTile(tileX, tileY, configuration);
+                    tile.draw(g2d, tileX * tileSize - originX, tileY * tileSize - originY, configuration);
+                }
+            }
+        } finally {
+            renderer.endFrame();
+        }
+
+        evictTiles();
+    }
+
+    private Tile getTile(int tileX, int tileY, GraphicsConfiguration configuration) {
+        long key = tileKey(tileX, tileY);
+        Tile tile = tiles.get(key);
+
+        if (tile == null) {
+            tile = new Tile(tileX, tileY, configuration);
+            tiles.put(key, tile);
+        }
+
+        return tile;
+    }
+
+    private void evictTiles() {
+        Iterator<Tile> iterator = tiles.values().iterator();
+
+        while (tiles.size() > maxTiles && iterator.hasNext()) {
+            iterator.next().flush();
+            iterator.remove();
+        }
+    }
+
+    private static long tileKey(int tileX, int tileY) {
+        return ((long) tileY << 32) | (tileX & 0xFFFFFFFFL);
+    }
+
+    /** Redraw every tile on next use */
+    public void invalidateAll() {
+        for (Tile tile : tiles.values())
+            tile.valid = false;
+    }
+
+    /** Redraw the tiles covering the node at offset coordinate (x, y), including its edges and faces, or the level of
+     *  detail cell holding it while cells are drawn */
+    public void invalidateNode(int x, int y) {
+        Rectangle bounds = renderer.getDirtyBounds(x, y);
+        invalidateRegion(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+    }
+
+    public void invalidate(Vertex vertex) {
+        invalidateNode(vertex.getX(), vertex.getY());
+    }
+
+    public void invalidate(Edge edge) {
+        invalidateNode(edge.getX(), edge.getY());
+    }
+
+    public void invalidate(TriangleFace face) {
+        invalidateNode(face.getX(), face.getY());
+    }
+
+    /** Redraw the tiles intersecting the given screen region (see GridGeometry) */
+    public void invalidateRegion(double minX, double minY, double maxX, double maxY) {
+        int minTileX = (int) Math.floor(minX / tileSize);
+        int maxTileX = (int) Math.floor(maxX / tileSize);
+        int minTileY = (int) Math.floor(minY / tileSize);
+        int maxTileY = (int) Math.floor(maxY / tileSize);
+
+        for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                Tile tile = tiles.get(tileKey(tileX, tileY));
+
+                if (tile != null)
+                    tile.valid = false;
+            }
+        }
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /** A tileSize x tileSize square of screen space whose top left corner is (tileX * tileSize, tileY * tileSize) */
+    private class Tile {
+        private final int tileX, tileY;
+        private Image image;
+        private boolean valid;
+
+        private Tile(int tileX, int tileY, GraphicsConfiguration configuration) {
+            this.tileX = tileX;
+            this.tileY = tileY;
+            image = createImage(configuration);
+        }
+
+        private Image createImage(GraphicsConfiguration configuration) {
+            if (configuration != null)
+                return configuration.createCompatibleVolatileImage(tileSize, tileSize, Transparency.TRANSLUCENT);
+            else
+                return new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        /** Blit the tile to (x, y), re-rendering it first if invalid or lost */
+        private void draw(Graphics2D g2d, int x, int y, GraphicsConfiguration configuration) {
+            if (image instanceof VolatileImage volatileImage) {
+                //volatile contents can be lost at any time, keep redrawing until a blit succeeds
+                do {
+                    int status = configuration == null ? VolatileImage.IMAGE_OK : volatileImage.validate(configuration);
+
+                    if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                        volatileImage.flush();
+                        image = volatileImage = (VolatileImage) createImage(configuration);
+                        valid = false;
+                    } else if (status == VolatileImage.IMAGE_RESTORED)
+                        valid = false;
+
+                    if (!valid)
+                        render();
+
+                    g2d.drawImage(volatileImage, x, y, null);
+                    valid = !volatileImage.contentsLost();
+                } while (!valid);
+            } else {
+                if (!valid)
+                    render();
+
+                g2d.drawImage(image, x, y, null);
+            }
+        }
+
+        private void render() {
+            Graphics2D g2d = (Graphics2D) image.getGraphics();
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, tileSize, tileSize);
+            g2d.setComposite(AlphaComposite.SrcOver);
+            g2d.setClip(0, 0, tileSize, tileSize);
+            renderer.drawGrid(g2d, (double) tileX * tileSize, (double) tileY * tileSize);
+            g2d.dispose();
+            valid = true;
+        }
+
+        private void flush() {
+            image.flush();
+        }
+    }
+}
@@ -3,85 +3,225 @@ package trianglegrid.ui;
 import trianglegrid.DemoGridRender;
 import trianglegrid.coordinates.DirectedCoordinate;
 import trianglegrid.coordinates.FractionalCoordinate;
+import trianglegrid.coordinates.PackedCoordinate;
 import trianglegrid.coordinates.TriangleCoordinate;
-import trianglegrid.grid.GridGeometry;
 import trianglegrid.grid.*;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/** Swing component drawing a grid through a TileCache.
+ *  Mouse input is picked on a background thread: presses are picked in order, while moves and drags are coalesced so
+ *  at most one is picked per frame. Listeners are notified back on the event dispatch thread. */
 public class TriangleGridPane extends JPanel {
     private final static int SELECTABLE_LINE_WIDTH = 3;
     private final static int SELECTABLE_VERTEX_RADIUS = 15;
+    /** Minimum time between two hover picks */
+    private final static long FRAME_NANOS = 1_000_000_000L / 60;
     private final TriangleGridRenderer renderer;
-    private final TriangleGrid grid;
+    private final AbstractTriangleGrid grid;
+    private final TileCache tileCache;
+    private final List<GridSelectionListener> selectionListeners = new ArrayList<>();
+    private final List<GridHoverListener> hoverListeners = new ArrayList<>();
+    /** Single daemon thread making every pick, so results arrive in event order */
+    private final ScheduledExecutorService pickExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "grid-pick");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final HoverPicker hoverPicker = new HoverPicker();
 
     public TriangleGridPane(DemoGridRender renderer){
         this.renderer = renderer;
         this.grid = renderer.getGrid();
+        this.tileCache = new TileCache(renderer);
+
+        GridMouseAdapter mouseAdapter = new GridMouseAdapter();
+        addMouseListener(mouseAdapter);
+        addMouseMotionListener(mouseAdapter);
     }
 
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
-        renderer.drawGrid(g2d);
+        tileCache.drawGrid(g2d, getGraphicsConfiguration());
+    }
+
+    /** Cache of rendered tiles, invalidate any elements that change before repainting */
+    public TileCache getTileCache() {
+        return tileCache;
     }
 
     public void addTriangleSelectionListener(GridSelectionListener listener){
-        addMouseListener(new TriangleSelectionMouseAdapter(listener));
+        selectionListeners.add(listener);
     }
 
-    private class TriangleSelectionMouseAdapter extends MouseAdapter {
-        private final GridSelectionListener listener;
+    public void addGridHoverListener(GridHoverListener listener) {
+        hoverListeners.add(listener);
+    }
 
-        public TriangleSelectionMouseAdapter(GridSelectionListener listener) {
-            this.listener = listener;
+    /** Invalidate and repaint only the screen area an element can cover, after changing how it is drawn */
+    public void repaintElement(PickResult element) {
+        long vertex = element.toPacked();
+        Rectangle bounds = renderer.getDirtyBounds(PackedCoordinate.getX(vertex), PackedCoordinate.getY(vertex));
+
+        //the element may be owned by a neighbouring node, whose level of detail cell can differ. Drawn individually,
+        //elements at a vertex lie within the draw margin of it whichever node owns them
+        if (renderer.isDrawingLevelOfDetail()) {
+            for (int direction = 0; direction < 6; direction++) {
+                long neighbour = PackedCoordinate.getNeighbour(vertex, direction);
+                bounds.add(renderer.getDirtyBounds(PackedCoordinate.getX(neighbour), PackedCoordinate.getY(neighbour)));
+            }
         }
 
-        public void mousePressed(MouseEvent e) {
-            if (listener == null)
-                return;
+        repaintBounds(bounds);
+    }
 
-            GridGeometry geometry = renderer.getGeometry();
+    /** Invalidate and repaint only the screen area covered by the node at offset coordinate (x, y), its edges and faces */
+    public void repaintNode(int x, int y) {
+        repaintBounds(renderer.getDirtyBounds(x, y));
+    }
+
+    /** Invalidate and repaint screen bounds (see GridGeometry), from TriangleGridRenderer.getDirtyBounds */
+    private void repaintBounds(Rectangle bounds) {
+        tileCache.invalidateRegion(bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
 
-            //mouse to grid coordinates and adjust for camera
-            FractionalCoordinate mouseCoordinate = geometry.screenToGridCoordinate(
-                    e.getX() - renderer.getRenderWidth() / 2,
-                    e.getY() - renderer.getRenderHeight() / 2);
+        FractionalCoordinate position = renderer.getPosition();
+        int left = (int) Math.floor(bounds.x - renderer.getOriginX(position));
+        int top = (int) Math.floor(bounds.y - renderer.getOriginY(position));
+        repaint(left, top, bounds.width + 1, bounds.height + 1);
+    }
 
-            FractionalCoordinate cameraCoordinate = renderer.getPosition();
-            FractionalCoordinate adjustedMouseCoordinate = mouseCoordinate.addCoordinate(cameraCoordinate);
+    /** Notify the selection listeners of a pressed element, on the event dispatch thread */
+    private void elementPressed(PickResult pick) {
+        TriangleCoordinate coordinate = PackedCoordinate.toTriangleCoordinate(pick.toPacked());
 
-            listener.gridSelected(adjustedMouseCoordinate);
+        for (GridSelectionListener listener : selectionListeners) {
+            listener.gridSelected(new FractionalCoordinate(pick.gridA, pick.gridB, -pick.gridA - pick.gridB));
 
-            //check for vertex click
-            if (geometry.nearestVertexDistance(adjustedMouseCoordinate) < SELECTABLE_VERTEX_RADIUS){
-                TriangleCoordinate vertexCoordinate = geometry.nearestVertexCoordinate(adjustedMouseCoordinate);
-                Vertex vertex = grid.getVertex(vertexCoordinate);
+            if (pick.type == PickResult.VERTEX) {
+                Vertex vertex = grid.getVertex(coordinate);
 
                 if (vertex != null)
-                   listener.vertexSelected(vertexCoordinate, vertex);
+                   listener.vertexSelected(coordinate, vertex);
             }
-            //check for edge click
-            else if (geometry.nearestEdgeDistance(adjustedMouseCoordinate) < SELECTABLE_LINE_WIDTH){
-                DirectedCoordinate edgeCoordinate = geometry.nearestEdgeCoordinate(adjustedMouseCoordinate);
-                Edge edge = grid.getEdge(edgeCoordinate.coordinate, edgeCoordinate.direction);
+            else if (pick.type == PickResult.EDGE) {
+                Edge edge = grid.getEdge(coordinate, pick.direction);
 
                 if (edge != null)
-                    listener.edgeSelected(edgeCoordinate, edge);
+                    listener.edgeSelected(new DirectedCoordinate(coordinate, pick.direction), edge);
             }
-            //check for face click
             else {
-                DirectedCoordinate faceCoordinate = geometry.getFaceCoordinate(adjustedMouseCoordinate);
-                TriangleFace face = grid.getFace(faceCoordinate.coordinate, faceCoordinate.direction);
+                TriangleFace face = grid.getFace(coordinate, pick.direction);
 
                 if (face != null)
-                    listener.faceSelected(faceCoordinate, face);
+                    listener.faceSelected(new DirectedCoordinate(coordinate, pick.direction), face);
             }
+        }
+    }
+
+    /** Notify the hover listeners of a new element under the mouse, on the event dispatch thread */
+    private void elementHovered(PickResult element, boolean dragging) {
+        for (GridHoverListener listener : hoverListeners) {
+            if (dragging)
+                listener.elementDragged(element);
+            else
+                listener.elementHovered(element);
+        }
+    }
+
+    private class GridMouseAdapter extends MouseAdapter {
+        public void mousePressed(MouseEvent e) {
+            if (selectionListeners.isEmpty())
+                return;
+
+            //mouse to screen coordinates relative to the grid origin, adjusting for camera
+            FractionalCoordinate position = renderer.getPosition();
+            double screenX = e.getX() + renderer.getOriginX(position);
+            double screenY = e.getY() + renderer.getOriginY(position);
+            GridGeometry geometry = renderer.getGeometry();
+
+            pickExecutor.execute(() -> {
+                PickResult pick = new PickResult();
+                geometry.pick(screenX, screenY, SELECTABLE_VERTEX_RADIUS, SELECTABLE_LINE_WIDTH, pick);
+                SwingUtilities.invokeLater(() -> elementPressed(pick));
+            });
+        }
+
+        public void mouseMoved(MouseEvent e) {
+            if (!hoverListeners.isEmpty())
+                hoverPicker.moved(e, false);
+        }
+
+        public void mouseDragged(MouseEvent e) {
+            if (!hoverListeners.isEmpty())
+                hoverPicker.moved(e, true);
+        }
+    }
+
+    /** Coalesces mouse movement into at most one pick per frame, always of the latest position.
+     *  Listeners are only notified when the picked element changes. */
+    private class HoverPicker implements Runnable {
+        //latest position, written on the event dispatch thread and guarded by this
+        private double pendingX, pendingY;
+        private GridGeometry pendingGeometry;
+        private boolean pendingDragging;
+        private boolean scheduled;
+        private long lastPickNanos;
+
+        //only used on the pick thread
+        private final PickResult pick = new PickResult();
+        private final PickResult hovered = new PickResult();
+        private boolean hasHovered;
+
+        synchronized void moved(MouseEvent e, boolean dragging) {
+            FractionalCoordinate position = renderer.getPosition();
+            pendingX = e.getX() + renderer.getOriginX(position);
+            pendingY = e.getY() + renderer.getOriginY(position);
+            pendingGeometry = renderer.getGeometry();
+            pendingDragging = dragging;
+
+            if (!scheduled) {
+                scheduled = true;
+                long delay = Math.max(0, lastPickNanos + FRAME_NANOS - System.nanoTime());
+                pickExecutor.schedule(this, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public void run() {
+            double screenX, screenY;
+            GridGeometry geometry;
+            boolean dragging;
+
+            synchronized (this) {
+                screenX = pendingX;
+                screenY = pendingY;
+                geometry = pendingGeometry;
+                dragging = pendingDragging;
+                scheduled = false;
+                lastPickNanos = System.nanoTime();
+            }
+
+            geometry.pick(screenX, screenY, SELECTABLE_VERTEX_RADIUS, SELECTABLE_LINE_WIDTH, pick);
+
+            if (hasHovered && pick.isSameElement(hovered))
+                return;
+
+            hovered.set(pick);
+            hasHovered = true;
 
+            PickResult element = new PickResult();
+            element.set(pick);
+            SwingUtilities.invokeLater(() -> elementHovered(element, dragging));
         }
     }
 }
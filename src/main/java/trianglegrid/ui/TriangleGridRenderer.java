@@ -1,119 +1,304 @@
 package trianglegrid.ui;
 
 import trianglegrid.coordinates.FractionalCoordinate;
-import trianglegrid.coordinates.TriangleCoordinate;
 import trianglegrid.grid.GridGeometry;
 import trianglegrid.grid.*;
 
 import java.awt.*;
 import java.awt.geom.Point2D;
 
-/** Abstract class that provides basic functionality to render a triangle grid on a Graphics2D canvas. */
+/** Abstract class that provides basic functionality to render a triangle grid on a Graphics2D canvas.
+ *  Subclasses override the draw methods for the elements they wish to render.
+ *  A renderer keeps the state of the frame it is drawing (frame grid, visible range, reused clip bounds), so drawing and
+ *  the frame methods must only be called from one thread at a time. Use a renderer per thread to draw in parallel, as
+ *  GridExporter does. The camera position may be set, and the geometry read, from any thread. */
 public abstract class TriangleGridRenderer {
     /** Grid to render */
-    private final TriangleGrid grid;
-    /** Geometry operations associated with grid */
-    private final GridGeometry geometry;
+    private final AbstractTriangleGrid grid;
+    /** Geometry operations associated with grid, replaced when zooming and read by other threads to pick */
+    private volatile GridGeometry geometry;
     /** Length in pixels of the canvas to be rendered */
     private final int canvasWidthPixels;
     private final int canvasHeightPixels;
-    /** Length in triangles of the canvas to be rendered */
-    private final int halfCanvasWidthTriangles;
-    private final int halfCanvasHeightTriangles;
 
-    /** Centre position of grid to be renderered */
-    private FractionalCoordinate cameraPosition = new FractionalCoordinate(0,0,0);
+    /** Drawing operations passed to drawLayer and drawNode, in drawing order */
+    protected static final int FACE_LAYER = 0;
+    protected static final int EDGE_LAYER = 1;
+    protected static final int VERTEX_LAYER = 2;
+    protected static final int COORDINATE_LAYER = 3;
+
+    /** Smallest width in pixels of a level of detail cell */
+    public static final int MINIMUM_CELL_PIXELS = 4;
+
+    /** Font and glyph cache of the coordinate overlay */
+    private static final Font COORDINATE_FONT = new Font("Arial", Font.PLAIN, 12);
+    private final CoordinateLabels coordinateLabels = new CoordinateLabels(COORDINATE_FONT, Color.black);
+    /** Label position relative to its vertex */
+    private static final int LABEL_X = -10, LABEL_Y = 5;
+    /** Furthest any coordinate label of the grid reaches from its vertex */
+    private final int coordinateLabelMargin;
+    private boolean coordinateOverlay = true;
+    /** Reused clip rectangle */
+    private final Rectangle clipBounds = new Rectangle();
+    /** Summaries drawn instead of elements while edges are shorter than lodEdgePixels, null to always draw elements */
+    private GridLodPyramid lod;
+    private double lodEdgePixels;
+    /** Reused bounds of a level of detail cell */
+    private final Rectangle cellBounds = new Rectangle();
+    /** Offset coordinates of the nodes visible in the current drawGrid call */
+    protected int minVisibleRow, maxVisibleRow, minVisibleColumn, maxVisibleColumn;
+
+    /** Grid read by the frame being drawn, a snapshot when grid is a ConcurrentTriangleGrid */
+    private AbstractTriangleGrid frameGrid;
+    private int frameDepth;
+
+    /** Centre position of grid to be renderered, may be set from any thread */
+    private volatile FractionalCoordinate cameraPosition = new FractionalCoordinate(0,0,0);
 
     /** Constructs a TriangleGridRenderer with a given grid, canvas dimensions and edge length. */
-    public TriangleGridRenderer(TriangleGrid grid, int canvasWidthPixels, int canvasHeightPixels, int edgeLength) {
+    public TriangleGridRenderer(AbstractTriangleGrid grid, int canvasWidthPixels, int canvasHeightPixels, int edgeLength) {
         this.grid = grid;
+        this.frameGrid = grid;
         this.canvasWidthPixels = canvasWidthPixels;
         this.canvasHeightPixels = canvasHeightPixels;
         this.geometry = new GridGeometry(edgeLength);
-        halfCanvasWidthTriangles = (int) (canvasWidthPixels / geometry.columnSpacing) + 1 / 2 ;
-        halfCanvasHeightTriangles = (int) (canvasHeightPixels / geometry.rowSpacing) + 1 / 2;
+        this.coordinateLabelMargin = coordinateLabels.getMaxExtent(LABEL_X, LABEL_Y, Math.max(grid.getWidth(), grid.getHeight()));
     }
 
-    /** Draws the grid on the provided Graphics2D object. */
+    /** Draws the grid on the provided Graphics2D object, centred on the camera position. */
     public void drawGrid(Graphics2D g2d) {
-        // 1) Loop through each drawing operation
-        // 2) Calculate render position of each node
-        // 3) Render via the drawNode method
-
-        TriangleCoordinate flooredCamera = cameraPosition.flooredTriangleCoordinate();
-
-        //camera centre offset by half the screen
-        double offsetX = geometry.gridToScreenX(cameraPosition.a, cameraPosition.b) - canvasWidthPixels / 2;
-        double offsetY = geometry.gridToScreenY(cameraPosition.b) - canvasHeightPixels / 2;
-
-        for (int drawingOperation = 0; drawingOperation < 3; drawingOperation++) {
-            for (int y = -halfCanvasHeightTriangles; y < halfCanvasHeightTriangles; y++) {
-                for (int x = -halfCanvasWidthTriangles; x <  halfCanvasWidthTriangles; x++) {
-                    //floored camera centre offset by current loop coordinate
-                    //this allows for the fractional camera coordinate to be centred exactly
-                    TriangleCoordinate loopCoordinate = TriangleCoordinate.fromOffsetCoordinate(x , y);
-                    TriangleCoordinate renderCoordinate = flooredCamera.subtractCoordinate(loopCoordinate);
-
-                    //convert to screen coords and subtract offset
-                    Point2D vertexPosition = geometry.gridToScreenCoordinate(renderCoordinate);
-                    vertexPosition = new Point2D.Double((vertexPosition.getX() - offsetX), (vertexPosition.getY() - offsetY));
-
-                    //centre graphics to centre of node
-                    g2d.translate(vertexPosition.getX(), vertexPosition.getY());
-                    drawNode(g2d, renderCoordinate, drawingOperation);
-
-                    //reset
-                    g2d.translate(-vertexPosition.getX(), -vertexPosition.getY());
-                }
+        //read the camera once, it may be replaced by another thread
+        FractionalCoordinate position = cameraPosition;
+        drawGrid(g2d, getOriginX(position), getOriginY(position));
+    }
+
+    /** Draws the grid with the given screen position (see GridGeometry) at the Graphics2D origin.
+     *  Only nodes that can touch the clip bounds are visited.
+     *  The loop itself allocates nothing, subclasses overriding the primitive draw methods keep a frame allocation free. */
+    public void drawGrid(Graphics2D g2d, double offsetX, double offsetY) {
+        // 1) Calculate the range of rows and columns that are visible
+        // 2) Loop through each drawing operation
+        beginFrame();
+
+        try {
+            updateVisibleRange(g2d, offsetX, offsetY);
+
+            if (drawLevelOfDetail(g2d, offsetX, offsetY))
+                return;
+
+            int lastLayer = coordinateOverlay ? COORDINATE_LAYER : VERTEX_LAYER;
+
+            for (int drawingOperation = FACE_LAYER; drawingOperation <= lastLayer; drawingOperation++)
+                drawLayer(g2d, offsetX, offsetY, drawingOperation);
+        } finally {
+            endFrame();
+        }
+    }
+
+    /** Starts a frame that may span several drawGrid calls, such as the tiles of a TileCache.
+     *  A ConcurrentTriangleGrid is snapshotted once here so every call in the frame reads the same state while writers carry on,
+     *  the grid reuses its last snapshot while nothing has been written.
+     *  Calls nest, each must be matched by endFrame. */
+    public void beginFrame() {
+        if (frameDepth++ == 0 && grid instanceof ConcurrentTriangleGrid concurrentGrid)
+            frameGrid = concurrentGrid.snapshot();
+    }
+
+    /** Ends the frame started by beginFrame, releasing its snapshot */
+    public void endFrame() {
+        if (--frameDepth == 0)
+            frameGrid = grid;
+    }
+
+    /** Grid to read while drawing: the frame snapshot of a ConcurrentTriangleGrid, otherwise the grid itself */
+    protected AbstractTriangleGrid getFrameGrid() {
+        return frameGrid;
+    }
+
+    /** Draws the visible cells of the level of detail pyramid if edges are currently too short to draw individually.
+     *  The level is the lowest with cells at least MINIMUM_CELL_PIXELS across. Returns false if elements should be drawn. */
+    protected boolean drawLevelOfDetail(Graphics2D g2d, double offsetX, double offsetY) {
+        if (!isDrawingLevelOfDetail())
+            return false;
+
+        int level = getLevelOfDetailLevel();
+        int cellSize = lod.getCellSize(level);
+        int minCellX = minVisibleColumn / cellSize, maxCellX = maxVisibleColumn / cellSize;
+        int minCellY = minVisibleRow / cellSize, maxCellY = maxVisibleRow / cellSize;
+
+        for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+            //whole pixel edges so neighbouring cells meet without gaps
+            int top = (int) Math.floor(geometry.offsetToScreenY(cellY * cellSize) - offsetY);
+            int bottom = (int) Math.floor(geometry.offsetToScreenY((cellY + 1) * cellSize) - offsetY);
+
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                int left = (int) Math.floor(cellX * cellSize * geometry.columnSpacing - offsetX);
+                int right = (int) Math.floor((cellX + 1) * cellSize * geometry.columnSpacing - offsetX);
+                cellBounds.setBounds(left, top, right - left, bottom - top);
+                drawCell(g2d, lod, level, cellX, cellY, cellBounds);
             }
         }
+
+        return true;
+    }
+
+    /** Calculate the rows and columns of nodes that can touch the clip bounds */
+    protected void updateVisibleRange(Graphics2D g2d, double offsetX, double offsetY) {
+        clipBounds.setBounds(0, 0, canvasWidthPixels, canvasHeightPixels);
+        Rectangle clip = g2d.getClipBounds(clipBounds);
+
+        //widen the clip to catch nodes whose vertex is outside it but that draw into it
+        double margin = getDrawMargin();
+        minVisibleRow = clampRow(Math.floor((clip.getMinY() - margin + offsetY) / geometry.rowSpacing));
+        maxVisibleRow = clampRow(Math.ceil((clip.getMaxY() + margin + offsetY) / geometry.rowSpacing));
+        minVisibleColumn = clampColumn(Math.floor((clip.getMinX() - margin + offsetX) / geometry.columnSpacing));
+        //odd rows are shifted left by half a column
+        maxVisibleColumn = clampColumn(Math.ceil((clip.getMaxX() + margin + offsetX) / geometry.columnSpacing) + 1);
     }
 
-    /** Draws the given node based on the current drawing operation */
-    protected void drawNode(Graphics2D g2d, TriangleCoordinate coordinate, int drawingOperation) {
-        TriangleGrid.TriangleGridNode node = grid.getNode(coordinate);
+    /** Draws a single drawing operation for every visible node */
+    protected void drawLayer(Graphics2D g2d, double offsetX, double offsetY, int drawingOperation) {
+        // 1) Step the render position of each node along the row
+        // 2) Render via the drawNode method
+        for (int y = minVisibleRow; y <= maxVisibleRow; y++) {
+            //screen position of the first vertex in the row, odd rows are shifted by half a column
+            double screenX = geometry.offsetToScreenX(minVisibleColumn, y) - offsetX;
+            double screenY = geometry.offsetToScreenY(y) - offsetY;
+
+            for (int x = minVisibleColumn; x <= maxVisibleColumn; x++) {
+                //centre graphics to centre of node
+                g2d.translate(screenX, screenY);
+                drawNode(g2d, x, y, drawingOperation);
 
-        if (node == null)
+                //reset
+                g2d.translate(-screenX, -screenY);
+                screenX += geometry.columnSpacing;
+            }
+        }
+    }
+
+    /** Clamp a row to the grid, rows outside the grid contain no nodes */
+    private int clampRow(double row) {
+        return (int) Math.max(0, Math.min(grid.getHeight() - 1, row));
+    }
+
+    /** Clamp a column to the grid, columns outside the grid contain no nodes */
+    private int clampColumn(double column) {
+        return (int) Math.max(0, Math.min(grid.getWidth() - 1, column));
+    }
+
+    /** Draws the node at offset coordinate (x, y) based on the current drawing operation */
+    protected void drawNode(Graphics2D g2d, int x, int y, int drawingOperation) {
+        if (!frameGrid.isInBounds(x, y))
             return;
 
         switch (drawingOperation) {
-            case 0:
-                drawAllFaces(g2d, node.faceUp, node.faceDown);
+            case FACE_LAYER:
+                drawAllFaces(g2d, x, y);
                 break;
-            case 1:
-                drawAllEdges(g2d, node.edges);
+            case EDGE_LAYER:
+                drawAllEdges(g2d, x, y);
                 break;
-            case 2:
-                drawVertex(g2d, node.vertex);
+            case VERTEX_LAYER:
+                drawVertex(g2d, x, y);
+                break;
+            case COORDINATE_LAYER:
+                //axial coordinate label
+                coordinateLabels.drawLabel(g2d, x - (y + (y & 1)) / 2, y, LABEL_X, LABEL_Y);
                 break;
         }
-
-
-        Font font = new Font("Arial", Font.PLAIN, 12);
-        g2d.setColor(Color.black);
-
-        g2d.setFont(font);
-        g2d.drawString(coordinate.a+","+coordinate.b,-10,5);
     }
 
-    protected void drawAllEdges(Graphics2D g2d, Edge[] edges) {
+    protected void drawAllEdges(Graphics2D g2d, int x, int y) {
         for (int edgeIndex = 0; edgeIndex < 3; edgeIndex++) {
             //vertex from hexagon centre to edge direction
             Point2D vertex = geometry.hexagon.getVertex(edgeIndex);
 
-            if (edges[edgeIndex] != null)
-                drawEdge(g2d, edges[edgeIndex], vertex.getX(), vertex.getY());
+            if (frameGrid.hasEdge(x, y, edgeIndex))
+                drawEdge(g2d, x, y, edgeIndex, vertex.getX(), vertex.getY());
         }
     }
 
-    protected void drawAllFaces(Graphics2D g2d, TriangleFace faceUp, TriangleFace faceDown) {
-        if (faceUp != null)
-            drawFace(g2d, faceUp, geometry.pointyUpTriangle);
-        if (faceDown != null)
-            drawFace(g2d, faceDown, geometry.pointyDownTriangle);
+    protected void drawAllFaces(Graphics2D g2d, int x, int y) {
+        if (frameGrid.hasFace(x, y, TriangleFace.POINTY_UP))
+            drawFace(g2d, x, y, TriangleFace.POINTY_UP, geometry.pointyUpTriangle);
+        if (frameGrid.hasFace(x, y, TriangleFace.POINTY_DOWN))
+            drawFace(g2d, x, y, TriangleFace.POINTY_DOWN, geometry.pointyDownTriangle);
     }
 
-    public TriangleGrid getGrid() {
+    /** Distance in pixels from a node's vertex that anything drawn for the node can reach. Nodes further than this
+     *  outside the clip are culled, and it bounds the area redrawn when a node changes. The default covers faces and
+     *  edges, which reach an edge length, and the coordinate labels when shown. Subclasses drawing anything that does not
+     *  scale with the edge length, such as fixed size vertices or wide strokes, must override this to include it. */
+    public double getDrawMargin() {
+        double margin = geometry.hexagon.edgeLength;
+        return coordinateOverlay ? Math.max(margin, coordinateLabelMargin) : margin;
+    }
+
+    /** Screen bounds (see GridGeometry) of everything drawn from the elements owned by the node at offset coordinate
+     *  (x, y), the area to redraw after they change. While level of detail is drawn this is the whole cell summarising
+     *  the node, otherwise the draw margin around its vertex. Includes a pixel of slack for fractional camera origins. */
+    public Rectangle getDirtyBounds(int x, int y) {
+        if (isDrawingLevelOfDetail()) {
+            int cellSize = lod.getCellSize(getLevelOfDetailLevel());
+            int cellX = Math.floorDiv(x, cellSize), cellY = Math.floorDiv(y, cellSize);
+            //the same whole pixel edges drawLevelOfDetail draws the cell within
+            int left = (int) Math.floor(cellX * cellSize * geometry.columnSpacing);
+            int right = (int) Math.floor((cellX + 1) * cellSize * geometry.columnSpacing);
+            int top = (int) Math.floor(geometry.offsetToScreenY(cellY * cellSize));
+            int bottom = (int) Math.floor(geometry.offsetToScreenY((cellY + 1) * cellSize));
+            return new Rectangle(left - 1, top - 1, right - left + 2, bottom - top + 2);
+        }
+
+        double margin = getDrawMargin();
+        int left = (int) Math.floor(geometry.offsetToScreenX(x, y) - margin);
+        int top = (int) Math.floor(geometry.offsetToScreenY(y) - margin);
+        int size = (int) Math.ceil(margin * 2) + 2;
+        return new Rectangle(left - 1, top - 1, size, size);
+    }
+
+    /** Whether level of detail cells are drawn instead of elements at the current edge length */
+    public boolean isDrawingLevelOfDetail() {
+        return lod != null && geometry.hexagon.edgeLength < lodEdgePixels;
+    }
+
+    /** Pyramid level drawn at the current edge length, the lowest with cells at least MINIMUM_CELL_PIXELS across */
+    private int getLevelOfDetailLevel() {
+        return lod.getLevel(MINIMUM_CELL_PIXELS / geometry.hexagon.edgeLength);
+    }
+
+    /** Draw summaries from the pyramid instead of individual elements while the edge length is below edgePixels.
+     *  Pass null to always draw elements. */
+    public void setLevelOfDetail(GridLodPyramid lod, double edgePixels) {
+        this.lod = lod;
+        this.lodEdgePixels = edgePixels;
+    }
+
+    public GridLodPyramid getLevelOfDetail() {
+        return lod;
+    }
+
+    /** Edge length in pixels, the zoom level of the renderer */
+    public double getEdgeLength() {
+        return geometry.hexagon.edgeLength;
+    }
+
+    /** Zoom by changing the edge length in pixels. The camera position is kept, so the zoom is centred on the canvas.
+     *  Must be called from the thread that draws the grid. */
+    public void setEdgeLength(double edgeLength) {
+        geometry = new GridGeometry(edgeLength);
+    }
+
+    /** Whether the axial coordinate of each vertex is drawn over the grid */
+    public boolean getCoordinateOverlay() {
+        return coordinateOverlay;
+    }
+
+    public void setCoordinateOverlay(boolean coordinateOverlay) {
+        this.coordinateOverlay = coordinateOverlay;
+    }
+
+    public AbstractTriangleGrid getGrid() {
         return grid;
     }
 
@@ -125,6 +310,24 @@ public abstract class TriangleGridRenderer {
         return cameraPosition;
     }
 
+    /** Screen position (see GridGeometry) drawn at the top left of the canvas: the camera centre offset by half the canvas */
+    public double getOriginX() {
+        return getOriginX(cameraPosition);
+    }
+
+    public double getOriginY() {
+        return getOriginY(cameraPosition);
+    }
+
+    /** Origin for a camera position read once with getPosition, so both axes agree while another thread moves the camera */
+    public double getOriginX(FractionalCoordinate position) {
+        return geometry.gridToScreenX(position.a, position.b) - canvasWidthPixels / 2;
+    }
+
+    public double getOriginY(FractionalCoordinate position) {
+        return geometry.gridToScreenY(position.b) - canvasHeightPixels / 2;
+    }
+
     public void setPosition(FractionalCoordinate coordinate) {
         cameraPosition = coordinate;
     }
@@ -134,6 +337,29 @@ public abstract class TriangleGridRenderer {
                 geometry.screenToGridCoordinate(x, y));
     }
 
+    /** Draws the edge (0 - 2) owned by the node at offset coordinate (x, y). The Graphics2D origin is set to the start of the edge.
+     *  Override to draw without allocating, the default looks up the Edge and calls drawEdge(Graphics2D, Edge, double, double). */
+    protected void drawEdge(Graphics2D g2d, int x, int y, int edgeIndex, double edgeFinishX, double edgeFinishY) {
+        drawEdge(g2d, frameGrid.getEdge(x, y, edgeIndex), edgeFinishX, edgeFinishY);
+    }
+
+    /** Draws the face owned by the node at offset coordinate (x, y). The Graphics2D origin is aligned with the triangleShape.
+     *  Override to draw without allocating, the default looks up the TriangleFace and calls drawFace(Graphics2D, TriangleFace, Shape). */
+    protected void drawFace(Graphics2D g2d, int x, int y, boolean pointing, Shape triangleShape) {
+        drawFace(g2d, frameGrid.getFace(x, y, pointing), triangleShape);
+    }
+
+    /** Draws the vertex at offset coordinate (x, y). The Graphics2D origin is set to the vertex centre.
+     *  Override to draw without allocating, the default looks up the Vertex and calls drawVertex(Graphics2D, Vertex). */
+    protected void drawVertex(Graphics2D g2d, int x, int y) {
+        drawVertex(g2d, frameGrid.getVertex(x, y));
+    }
+
+    /** Draws a cell of the level of detail pyramid covering the given whole pixel bounds.
+     *  The cell holds getCellSize(level) x getCellSize(level) nodes starting at offset coordinate (cellX * size, cellY * size). */
+    protected void drawCell(Graphics2D g2d, GridLodPyramid lod, int level, int cellX, int cellY, Rectangle bounds) {
+    }
+
     /** Draws any of the given triangle edges onto the Graphics2D object. The Graphics2D origin is set to the start of the edge. */
     protected abstract void drawEdge(Graphics2D g2d, Edge edge, double edgeFinishX, double edgeFinishY);
 
@@ -0,0 +1,78 @@
+package trianglegrid.grid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChunkedTriangleGridTest {
+    private static final int CHUNKS = 8;
+    //the last row and column of chunks are partial
+    private static final int SIZE = CHUNKS * ChunkedTriangleGrid.CHUNK_SIZE - 10;
+    private static final int CLEAN_CHUNKS = 3;
+
+    /** Sweeping a grid much larger than the budget keeps memory bounded, keeps every edit and rebuilds evicted chunks
+     *  with the edge values they started with */
+    @Test
+    void evictionKeepsEdits() {
+        ChunkedTriangleGrid grid = new ChunkedTriangleGrid(SIZE, SIZE, EdgeInitializer.seeded(9),
+                CLEAN_CHUNKS * ChunkedTriangleGrid.CHUNK_BYTES);
+        TriangleGrid expected = new TriangleGrid(SIZE, SIZE, EdgeInitializer.seeded(9));
+        Random random = new Random(10);
+        int[][] editedChunks = {{0, 0}, {5, 2}, {CHUNKS - 1, CHUNKS - 1}};
+
+        for (int[] chunk : editedChunks) {
+            for (int i = 0; i < 200; i++) {
+                int x = Math.min(SIZE - 1, chunk[0] * ChunkedTriangleGrid.CHUNK_SIZE + random.nextInt(ChunkedTriangleGrid.CHUNK_SIZE));
+                int y = Math.min(SIZE - 1, chunk[1] * ChunkedTriangleGrid.CHUNK_SIZE + random.nextInt(ChunkedTriangleGrid.CHUNK_SIZE));
+                int slot = random.nextInt(GridSlot.SLOT_COUNT);
+
+                if (expected.hasSlot(x, y, slot)) {
+                    int value = random.nextInt(2) == 0 ? random.nextInt(2) : random.nextInt(256);
+                    expected.setValue(x, y, slot, value);
+                    grid.setValue(x, y, slot, value);
+                }
+            }
+        }
+
+        int maxChunks = editedChunks.length + CLEAN_CHUNKS;
+
+        //two sweeps in different orders, so every clean chunk is evicted and rebuilt at least once
+        for (int pass = 0; pass < 2; pass++) {
+            for (int chunkY = 0; chunkY < CHUNKS; chunkY++) {
+                for (int chunkX = 0; chunkX < CHUNKS; chunkX++) {
+                    int x = (pass == 0 ? chunkX : CHUNKS - 1 - chunkX) * ChunkedTriangleGrid.CHUNK_SIZE;
+                    int y = (pass == 0 ? chunkY : CHUNKS - 1 - chunkY) * ChunkedTriangleGrid.CHUNK_SIZE;
+                    assertChunkEquals(expected, grid, x, y);
+                    assertTrue(grid.getLoadedChunkCount() <= maxChunks,
+                            grid.getLoadedChunkCount() + " chunks loaded, budget allows " + maxChunks);
+                }
+            }
+        }
+
+        GridAssertions.assertSameState(expected, grid);
+    }
+
+    /** Chunks of an effectively unbounded grid are only built where it is read */
+    @Test
+    void unboundedGridOnlyLoadsVisitedChunks() {
+        ChunkedTriangleGrid grid = new ChunkedTriangleGrid();
+        assertEquals(0, grid.getLoadedChunkCount());
+
+        grid.setVertexValue(Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 2, 42);
+        grid.getVertexValue(5, 5);
+        assertEquals(2, grid.getLoadedChunkCount());
+        assertEquals(42, grid.getVertexValue(Integer.MAX_VALUE - 2, Integer.MAX_VALUE - 2));
+    }
+
+    /** Every element of the chunk whose first node is (chunkX, chunkY) matches */
+    private static void assertChunkEquals(AbstractTriangleGrid expected, AbstractTriangleGrid actual, int chunkX, int chunkY) {
+        for (int y = chunkY; y < Math.min(SIZE, chunkY + ChunkedTriangleGrid.CHUNK_SIZE); y++)
+            for (int x = chunkX; x < Math.min(SIZE, chunkX + ChunkedTriangleGrid.CHUNK_SIZE); x++)
+                for (int slot = 0; slot < GridSlot.SLOT_COUNT; slot++)
+                    if (expected.hasSlot(x, y, slot))
+                        assertEquals(expected.getValue(x, y, slot), actual.getValue(x, y, slot), "slot " + slot + " of (" + x + ", " + y + ")");
+    }
+}
@@ -0,0 +1,93 @@
+package trianglegrid.grid;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrentTriangleGridTest {
+    //not a multiple of CHUNK_SIZE, so the last chunks are partial
+    private static final int WIDTH = 150, HEIGHT = 90;
+
+    /** A snapshot keeps the values it was taken with while the grid moves on, and a later snapshot sees the writes */
+    @Test
+    void snapshotIsIsolatedFromLaterWrites() {
+        ConcurrentTriangleGrid grid = new ConcurrentTriangleGrid(WIDTH, HEIGHT, EdgeInitializer.seeded(3));
+        TriangleGrid before = new TriangleGrid(WIDTH, HEIGHT, EdgeInitializer.constant(false));
+        GridAssertions.copyValues(grid, before);
+        GridSnapshot snapshot = grid.snapshot();
+
+        GridAssertions.fillValues(grid, new Random(4));
+        TriangleGrid after = new TriangleGrid(WIDTH, HEIGHT, EdgeInitializer.constant(false));
+        GridAssertions.copyValues(grid, after);
+
+        GridAssertions.assertSameState(before, snapshot);
+        GridAssertions.assertSameState(after, grid);
+        GridAssertions.assertSameState(after, grid.snapshot());
+        GridAssertions.assertSameState(before, snapshot);
+    }
+
+    /** A write after a snapshot is seen by the grid and later snapshots but not by the earlier one */
+    @Test
+    void singleWriteOnlyChangesItsElement() {
+        ConcurrentTriangleGrid grid = new ConcurrentTriangleGrid(WIDTH, HEIGHT, EdgeInitializer.seeded(5));
+        GridSnapshot snapshot = grid.snapshot();
+        int value = grid.getVertexValue(70, 10);
+        grid.setVertexValue(70, 10, value + 1);
+
+        assertEquals(value, snapshot.getVertexValue(70, 10));
+        assertEquals(value + 1, grid.getVertexValue(70, 10));
+        assertEquals(value + 1, grid.snapshot().getVertexValue(70, 10));
+    }
+
+    /** The snapshot is reused until something is written */
+    @Test
+    void snapshotIsReusedUntilWrite() {
+        ConcurrentTriangleGrid grid = new ConcurrentTriangleGrid(WIDTH, HEIGHT, EdgeInitializer.seeded(5));
+        GridSnapshot snapshot = grid.snapshot();
+        assertSame(snapshot, grid.snapshot());
+
+        grid.setFaceValue(3, 4, true, 9);
+        GridSnapshot next = grid.snapshot();
+        assertNotSame(snapshot, next);
+        assertSame(next, grid.snapshot());
+        assertEquals(9, next.getFaceValue(3, 4, true));
+    }
+
+    @Test
+    void snapshotIsReadOnly() {
+        GridSnapshot snapshot = new ConcurrentTriangleGrid(WIDTH, HEIGHT, EdgeInitializer.seeded(5)).snapshot();
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.setVertexValue(0, 0, 1));
+    }
+
+    /** A snapshot taken while a writer is running never changes while it is read */
+    @Test
+    void snapshotIsStableUnderConcurrentWrites() throws InterruptedException {
+        ConcurrentTriangleGrid grid = new ConcurrentTriangleGrid(WIDTH, HEIGHT, EdgeInitializer.seeded(6));
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            Random random = new Random(7);
+
+            while (!stop.get())
+                grid.setVertexValue(random.nextInt(WIDTH), random.nextInt(HEIGHT), random.nextInt(256));
+        });
+        writer.start();
+
+        try {
+            for (int i = 0; i < 20; i++) {
+                GridSnapshot snapshot = grid.snapshot();
+                TriangleGrid copy = new TriangleGrid(WIDTH, HEIGHT, EdgeInitializer.constant(false));
+                GridAssertions.copyValues(snapshot, copy);
+                GridAssertions.assertSameState(copy, snapshot);
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+}
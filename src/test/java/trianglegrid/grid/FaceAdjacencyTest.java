@@ -0,0 +1,45 @@
+package trianglegrid.grid;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FaceAdjacencyTest {
+    /** Every face across a side leads back across the same side, and both faces name the same edge for it */
+    @Test
+    void adjacentFacesAreSymmetric() {
+        TriangleGrid grid = new TriangleGrid(9, 8);
+        int checked = 0;
+
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                for (boolean pointing : new boolean[]{TriangleFace.POINTY_UP, TriangleFace.POINTY_DOWN}) {
+                    if (!grid.hasFace(x, y, pointing))
+                        continue;
+
+                    for (int side = 0; side < 3; side++) {
+                        int adjacentX = FaceAdjacency.adjacentX(x, y, pointing, side);
+                        int adjacentY = FaceAdjacency.adjacentY(y, pointing, side);
+                        int edgeX = FaceAdjacency.edgeX(x, y, pointing, side);
+                        int edgeY = FaceAdjacency.edgeY(y, pointing, side);
+                        String face = "face (" + x + ", " + y + ", " + pointing + ") side " + side;
+
+                        assertTrue(grid.hasEdge(edgeX, edgeY, side), face + " has no edge");
+
+                        if (!grid.hasFace(adjacentX, adjacentY, !pointing))
+                            continue;
+
+                        assertEquals(x, FaceAdjacency.adjacentX(adjacentX, adjacentY, !pointing, side), face);
+                        assertEquals(y, FaceAdjacency.adjacentY(adjacentY, !pointing, side), face);
+                        assertEquals(edgeX, FaceAdjacency.edgeX(adjacentX, adjacentY, !pointing, side), face);
+                        assertEquals(edgeY, FaceAdjacency.edgeY(adjacentY, !pointing, side), face);
+                        checked++;
+                    }
+                }
+            }
+        }
+
+        assertTrue(checked > 0);
+    }
+}
@@ -0,0 +1,47 @@
+package trianglegrid.grid;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/** Element by element grid comparison and filling shared by the grid tests */
+final class GridAssertions {
+    private GridAssertions() {
+    }
+
+    /** Both grids have the same size, the same elements and the same value in each */
+    static void assertSameState(AbstractTriangleGrid expected, AbstractTriangleGrid actual) {
+        assertEquals(expected.getWidth(), actual.getWidth(), "width");
+        assertEquals(expected.getHeight(), actual.getHeight(), "height");
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                for (int slot = 0; slot < GridSlot.SLOT_COUNT; slot++) {
+                    String element = "slot " + slot + " of (" + x + ", " + y + ")";
+                    assertEquals(expected.hasSlot(x, y, slot), actual.hasSlot(x, y, slot), element + " exists in only one grid");
+
+                    if (expected.hasSlot(x, y, slot))
+                        assertEquals(expected.getValue(x, y, slot), actual.getValue(x, y, slot), element);
+                }
+            }
+        }
+    }
+
+    /** Set every element of a grid to a random value */
+    static void fillValues(AbstractTriangleGrid grid, Random random) {
+        for (int y = 0; y < grid.getHeight(); y++)
+            for (int x = 0; x < grid.getWidth(); x++)
+                for (int slot = 0; slot < GridSlot.SLOT_COUNT; slot++)
+                    if (grid.hasSlot(x, y, slot))
+                        grid.setValue(x, y, slot, random.nextInt(256));
+    }
+
+    /** Copy every element value of one grid into another of the same size */
+    static void copyValues(AbstractTriangleGrid from, AbstractTriangleGrid to) {
+        for (int y = 0; y < from.getHeight(); y++)
+            for (int x = 0; x < from.getWidth(); x++)
+                for (int slot = 0; slot < GridSlot.SLOT_COUNT; slot++)
+                    if (from.hasSlot(x, y, slot))
+                        to.setValue(x, y, slot, from.getValue(x, y, slot));
+    }
+}
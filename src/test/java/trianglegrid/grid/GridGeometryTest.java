@@ -0,0 +1,83 @@
+package trianglegrid.grid;
+
+import org.junit.jupiter.api.Test;
+import trianglegrid.coordinates.DirectedCoordinate;
+import trianglegrid.coordinates.FractionalCoordinate;
+import trianglegrid.coordinates.TriangleCoordinate;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GridGeometryTest {
+    private static final double VERTEX_RADIUS = 15, EDGE_WIDTH = 3;
+    private static final int POINTS = 20000;
+
+    /** pick classifies every point as the nearest* and getFaceCoordinate methods it replaces do */
+    @Test
+    void pickMatchesNearestMethods() {
+        for (double edgeLength : new double[]{31, 40, 80.5}) {
+            GridGeometry geometry = new GridGeometry(edgeLength);
+            Random random = new Random(7);
+            PickResult result = new PickResult();
+            int[] typeCounts = new int[3];
+
+            for (int i = 0; i < POINTS; i++) {
+                //negative coordinates too, where rounding and flooring differ from truncation
+                double screenX = (random.nextDouble() - 0.5) * 40 * edgeLength;
+                double screenY = (random.nextDouble() - 0.5) * 40 * edgeLength;
+                geometry.pick(screenX, screenY, VERTEX_RADIUS, EDGE_WIDTH, result);
+                assertEquals(legacyPick(geometry, screenX, screenY), result.type + " " + result.a + " " + result.b + " " + result.direction,
+                        "point (" + screenX + ", " + screenY + ") at edge length " + edgeLength);
+                typeCounts[result.type]++;
+            }
+
+            for (int type = 0; type < 3; type++)
+                assertTrue(typeCounts[type] > 0, "no points of type " + type + " at edge length " + edgeLength);
+        }
+    }
+
+    /** The batch pick gives the same results as picking each point alone */
+    @Test
+    void batchPickMatchesSinglePick() {
+        GridGeometry geometry = new GridGeometry(40);
+        Random random = new Random(8);
+        double[] screenX = new double[POINTS];
+        double[] screenY = new double[POINTS];
+
+        for (int i = 0; i < POINTS; i++) {
+            screenX[i] = (random.nextDouble() - 0.5) * 2000;
+            screenY[i] = (random.nextDouble() - 0.5) * 2000;
+        }
+
+        PickResults results = new PickResults();
+        geometry.pick(screenX, screenY, POINTS, VERTEX_RADIUS, EDGE_WIDTH, results);
+        assertEquals(POINTS, results.getCount());
+        PickResult expected = new PickResult();
+        PickResult actual = new PickResult();
+
+        for (int i = 0; i < POINTS; i++) {
+            geometry.pick(screenX[i], screenY[i], VERTEX_RADIUS, EDGE_WIDTH, expected);
+            results.get(i, actual);
+            assertTrue(expected.isSameElement(actual), "point " + i + ": " + expected + " but was " + actual);
+            assertEquals(expected.gridA, actual.gridA);
+            assertEquals(expected.gridB, actual.gridB);
+        }
+    }
+
+    /** Type, a, b and direction of the element at a screen point, found the way the pane did before pick */
+    private static String legacyPick(GridGeometry geometry, double screenX, double screenY) {
+        FractionalCoordinate coordinate = geometry.screenToGridCoordinate(screenX, screenY);
+
+        if (geometry.nearestVertexDistance(coordinate) < VERTEX_RADIUS) {
+            TriangleCoordinate vertex = geometry.nearestVertexCoordinate(coordinate);
+            return PickResult.VERTEX + " " + vertex.a + " " + vertex.b + " -1";
+        }
+
+        DirectedCoordinate element = geometry.nearestEdgeDistance(coordinate) < EDGE_WIDTH
+                ? geometry.nearestEdgeCoordinate(coordinate) : geometry.getFaceCoordinate(coordinate);
+        int type = geometry.nearestEdgeDistance(coordinate) < EDGE_WIDTH ? PickResult.EDGE : PickResult.FACE;
+        return type + " " + element.coordinate.a + " " + element.coordinate.b + " " + element.direction;
+    }
+}
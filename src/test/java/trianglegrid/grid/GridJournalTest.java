@@ -0,0 +1,107 @@
+package trianglegrid.grid;
+
+import org.junit.jupiter.api.Test;
+import trianglegrid.coordinates.PackedCoordinate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static trianglegrid.grid.GridAssertions.assertSameState;
+import static trianglegrid.grid.GridAssertions.copyValues;
+
+class GridJournalTest {
+    /** Flushed batches replayed onto a copy of the original grid reproduce the journalled grid */
+    @Test
+    void replayReproducesJournalledGrid() throws Exception {
+        TriangleGrid grid = new TriangleGrid(40, 30);
+        TriangleGrid copy = new TriangleGrid(40, 30);
+        copyValues(grid, copy);
+        GridJournal journal = new GridJournal(grid);
+        Random random = new Random(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int flushed = 0;
+
+        //several batches, with repeated writes to the same elements
+        for (int batch = 0; batch < 5; batch++) {
+            setRandomValues(journal, random, 500);
+            flushed += journal.flush(out);
+        }
+
+        assertEquals(flushed, GridJournal.replay(new ByteArrayInputStream(out.toByteArray()), copy));
+        assertSameState(grid, copy);
+    }
+
+    /** Compacting keeps only the last value of each element, and replays to the same grid */
+    @Test
+    void compactKeepsLastValues() throws Exception {
+        TriangleGrid grid = new TriangleGrid(40, 30);
+        TriangleGrid copy = new TriangleGrid(40, 30);
+        copyValues(grid, copy);
+        GridJournal journal = new GridJournal(grid);
+        setRandomValues(journal, new Random(3), 5000);
+
+        int pending = journal.getPendingCount();
+        journal.compact();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int flushed = journal.flush(out);
+
+        assertTrue(flushed < pending, "compact removed no deltas");
+
+        //one delta per element
+        ByteBuffer batch = ByteBuffer.wrap(out.toByteArray(), 4, flushed * GridJournal.DELTA_BYTES);
+        Set<String> elements = new HashSet<>();
+
+        while (batch.hasRemaining()) {
+            long coordinate = batch.getLong();
+            int slot = batch.get();
+            batch.get();
+            assertTrue(elements.add(coordinate + "/" + slot), "element flushed twice");
+        }
+
+        GridJournal.replay(new ByteArrayInputStream(out.toByteArray()), copy);
+        assertSameState(grid, copy);
+    }
+
+    @Test
+    void setRejectsMissingElement() {
+        GridJournal journal = new GridJournal(new TriangleGrid(10, 10));
+
+        //the last row has no down faces
+        assertThrows(IllegalArgumentException.class, () -> journal.setFaceValue(0, 9, TriangleFace.POINTY_DOWN, 7));
+    }
+
+    @Test
+    void replayRejectsMissingElement() throws Exception {
+        TriangleGrid grid = new TriangleGrid(10, 10);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(1);
+        data.writeLong(PackedCoordinate.fromOffsetCoordinate(0, grid.getHeight() - 1));
+        data.writeByte(GridSlot.FACE_DOWN);
+        data.writeByte(7);
+
+        assertThrows(IOException.class, () -> GridJournal.replay(new ByteArrayInputStream(out.toByteArray()), grid));
+    }
+
+    private static void setRandomValues(GridJournal journal, Random random, int count) {
+        AbstractTriangleGrid grid = journal.getGrid();
+
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(grid.getWidth());
+            int y = random.nextInt(grid.getHeight());
+            int slot = random.nextInt(GridSlot.SLOT_COUNT);
+
+            if (grid.hasSlot(x, y, slot))
+                journal.set(x, y, slot, random.nextInt(256));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package trianglegrid.grid;
+
+import org.junit.jupiter.api.Test;
+import trianglegrid.coordinates.PackedCoordinate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class GridOverlayTest {
+    private static final int SIZE = 200;
+
+    /** Removing entries in any order keeps the rest reachable, through both the hash table and the chunk index */
+    @Test
+    void removeKeepsRemainingEntries() {
+        GridOverlay<Integer> overlay = new GridOverlay<>();
+
+        for (int y = 0; y < SIZE; y++)
+            for (int x = 0; x < SIZE; x++)
+                overlay.put(x, y, slot(x, y), y * SIZE + x);
+
+        //remove every third entry, spread over every chunk
+        for (int y = 0; y < SIZE; y++)
+            for (int x = 0; x < SIZE; x++)
+                if ((y * SIZE + x) % 3 == 0)
+                    assertEquals(y * SIZE + x, (int) overlay.remove(PackedCoordinate.fromOffsetCoordinate(x, y), slot(x, y)));
+
+        assertEquals(SIZE * SIZE - (SIZE * SIZE + 2) / 3, overlay.size());
+
+        int[] visited = new int[1];
+        overlay.forEachInRegion(GridRegion.offsetRectangle(0, 0, SIZE - 1, SIZE - 1), (coordinate, slot, value) -> {
+            assertNotEquals(0, value % 3, "removed entry visited");
+            visited[0]++;
+        });
+        assertEquals(overlay.size(), visited[0]);
+
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                if ((y * SIZE + x) % 3 == 0)
+                    assertNull(overlay.get(x, y, slot(x, y)));
+                else
+                    assertEquals(y * SIZE + x, (int) overlay.get(x, y, slot(x, y)));
+            }
+        }
+
+        for (int y = 0; y < SIZE; y++)
+            for (int x = 0; x < SIZE; x++)
+                overlay.remove(PackedCoordinate.fromOffsetCoordinate(x, y), slot(x, y));
+
+        assertEquals(0, overlay.size());
+        assertEquals(0, overlay.getChunkCount());
+    }
+
+    private static int slot(int x, int y) {
+        return (x + y) % GridSlot.SLOT_COUNT;
+    }
+}
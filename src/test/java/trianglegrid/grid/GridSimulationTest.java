@@ -0,0 +1,94 @@
+package trianglegrid.grid;
+
+import org.junit.jupiter.api.Test;
+import trianglegrid.coordinates.PackedCoordinate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static trianglegrid.grid.GridAssertions.assertSameState;
+import static trianglegrid.grid.GridAssertions.copyValues;
+
+class GridSimulationTest {
+    /** Vertex values spread outwards one node per step, losing one each node. Edges and faces follow their owner. */
+    private static final SimulationRule WAVE = new SimulationRule() {
+        @Override
+        public int nextVertexValue(AbstractTriangleGrid current, int x, int y) {
+            int value = current.getVertexValue(x, y);
+            long coordinate = PackedCoordinate.fromOffsetCoordinate(x, y);
+
+            for (int direction = 0; direction < 6; direction++) {
+                long neighbour = PackedCoordinate.getNeighbour(coordinate, direction);
+                int neighbourX = PackedCoordinate.getX(neighbour), neighbourY = PackedCoordinate.getY(neighbour);
+
+                if (current.isInBounds(neighbourX, neighbourY))
+                    value = Math.max(value, current.getVertexValue(neighbourX, neighbourY) - 1);
+            }
+
+            return value;
+        }
+
+        @Override
+        public boolean nextEdgeValue(AbstractTriangleGrid current, int x, int y, int edgeIndex) {
+            return (current.getVertexValue(x, y) & 1) != 0;
+        }
+
+        @Override
+        public int nextFaceValue(AbstractTriangleGrid current, int x, int y, boolean pointing) {
+            return current.getVertexValue(x, y) / 2;
+        }
+    };
+
+    /** Skipping chunks that cannot change gives the same generations as recomputing every element */
+    @Test
+    void activeChunksMatchFullStep() {
+        //odd sizes so the border chunks are clipped
+        TriangleGrid grid = new TriangleGrid(150, 140, EdgeInitializer.constant(false));
+        TriangleGrid expected = new TriangleGrid(150, 140, EdgeInitializer.constant(false));
+        GridSimulation simulation = new GridSimulation(grid, WAVE);
+        int chunkCount = simulation.getActiveChunkCount();
+
+        grid.setVertexValue(10, 10, 100);
+        expected.setVertexValue(10, 10, 100);
+
+        for (int generation = 1; generation <= 120; generation++) {
+            //a value set directly part way through, far from the wave
+            if (generation == 30) {
+                grid.setVertexValue(140, 130, 60);
+                expected.setVertexValue(140, 130, 60);
+                simulation.markChanged(140, 130);
+            }
+
+            simulation.step();
+            expected = fullStep(expected, WAVE);
+
+            if (generation == 1)
+                assertTrue(simulation.getActiveChunkCount() < chunkCount, "every chunk still active after the first step");
+
+            assertSameState(expected, grid);
+        }
+
+        assertEquals(120, simulation.getGeneration());
+    }
+
+    /** Apply a rule to every element of a grid, returning the next generation */
+    private static TriangleGrid fullStep(TriangleGrid current, SimulationRule rule) {
+        TriangleGrid next = new TriangleGrid(current.getWidth(), current.getHeight(), EdgeInitializer.constant(false));
+        copyValues(current, next);
+
+        for (int y = 0; y < current.getHeight(); y++) {
+            for (int x = 0; x < current.getWidth(); x++) {
+                next.setVertexValue(x, y, rule.nextVertexValue(current, x, y));
+
+                for (int edgeIndex = 0; edgeIndex < 3; edgeIndex++)
+                    if (current.hasEdge(x, y, edgeIndex))
+                        next.setEdgeValue(x, y, edgeIndex, rule.nextEdgeValue(current, x, y, edgeIndex));
+
+                for (boolean pointing : new boolean[]{TriangleFace.POINTY_UP, TriangleFace.POINTY_DOWN})
+                    if (current.hasFace(x, y, pointing))
+                        next.setFaceValue(x, y, pointing, rule.nextFaceValue(current, x, y, pointing));
+            }
+        }
+
+        return next;
+    }
+}
@@ -0,0 +1,92 @@
+package trianglegrid.grid;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static trianglegrid.grid.GridAssertions.assertSameState;
+import static trianglegrid.grid.GridAssertions.fillValues;
+
+class GridStreamsTest {
+    /** Odd sizes, so the border chunks are clipped in both directions */
+    private static final int WIDTH = 67, HEIGHT = 45, CHUNK_SIZE = 16;
+    /** Offset of the first chunk record, after the six header ints */
+    private static final int FIRST_CHUNK = 24;
+
+    @Test
+    void exportReadRoundTrip() throws Exception {
+        TriangleGrid grid = filledGrid();
+
+        for (int flags : new int[]{0, GridChunkWriter.COMPRESSED, GridChunkWriter.CHECKSUM, GridChunkWriter.COMPRESSED | GridChunkWriter.CHECKSUM})
+            assertSameState(grid, GridStreams.read(new ByteArrayInputStream(export(grid, flags))));
+    }
+
+    @Test
+    void importIntoAndTransformRoundTrip() throws Exception {
+        TriangleGrid grid = filledGrid();
+        byte[] stream = export(grid, GridChunkWriter.COMPRESSED);
+
+        TriangleGrid imported = new TriangleGrid(WIDTH, HEIGHT);
+        GridStreams.importInto(new ByteArrayInputStream(stream), imported);
+        assertSameState(grid, imported);
+
+        ByteArrayOutputStream copied = new ByteArrayOutputStream();
+        GridStreams.transform(new ByteArrayInputStream(stream), copied, GridChunkWriter.CHECKSUM, chunk -> {
+        });
+        assertSameState(grid, GridStreams.read(new ByteArrayInputStream(copied.toByteArray())));
+    }
+
+    @Test
+    void corruptDataFailsChecksum() throws Exception {
+        byte[] stream = export(filledGrid(), GridChunkWriter.CHECKSUM);
+        //first data byte of the first chunk
+        stream[FIRST_CHUNK + 17] ^= 1;
+
+        assertThrows(IOException.class, () -> GridStreams.read(new ByteArrayInputStream(stream)));
+    }
+
+    @Test
+    void movedChunkFailsChecksum() throws Exception {
+        byte[] stream = export(filledGrid(), GridChunkWriter.CHECKSUM);
+        //chunk (0, 0) claims to be the full chunk (1, 0)
+        ByteBuffer.wrap(stream).putInt(FIRST_CHUNK, 1);
+
+        assertThrows(IOException.class, () -> GridStreams.read(new ByteArrayInputStream(stream)));
+    }
+
+    @Test
+    void chunkOutsideGridIsRejected() throws Exception {
+        for (int[] coordinate : new int[][]{{5, 0}, {0, 3}, {-2, 0}, {0, -1}, {Integer.MAX_VALUE / CHUNK_SIZE + 1, 0}}) {
+            byte[] stream = export(filledGrid(), 0);
+            ByteBuffer.wrap(stream).putInt(FIRST_CHUNK, coordinate[0]).putInt(FIRST_CHUNK + 4, coordinate[1]);
+
+            assertThrows(IOException.class, () -> GridStreams.read(new ByteArrayInputStream(stream)),
+                    "chunk (" + coordinate[0] + ", " + coordinate[1] + ")");
+        }
+    }
+
+    @Test
+    void truncatedStreamIsRejected() throws Exception {
+        byte[] stream = export(filledGrid(), GridChunkWriter.COMPRESSED);
+
+        assertThrows(IOException.class, () -> GridStreams.read(new ByteArrayInputStream(Arrays.copyOf(stream, stream.length - 4))));
+    }
+
+    private static TriangleGrid filledGrid() {
+        TriangleGrid grid = new TriangleGrid(WIDTH, HEIGHT);
+        fillValues(grid, new Random(4));
+        return grid;
+    }
+
+    private static byte[] export(AbstractTriangleGrid grid, int flags) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GridStreams.export(grid, out, CHUNK_SIZE, flags);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,28 @@
+package trianglegrid.grid;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+import static trianglegrid.grid.GridAssertions.assertSameState;
+import static trianglegrid.grid.GridAssertions.fillValues;
+
+class TriangleGridFileTest {
+    @TempDir
+    Path directory;
+
+    /** A written grid reads and maps back with every value and every element's existence unchanged */
+    @Test
+    void writeReadAndMapRoundTrip() throws Exception {
+        //odd sizes so rows do not end on a word of edge bits
+        TriangleGrid grid = new TriangleGrid(67, 45);
+        fillValues(grid, new Random(1));
+        Path path = directory.resolve("grid.tgrd");
+
+        TriangleGridFile.write(grid, path);
+        assertSameState(grid, TriangleGridFile.read(path));
+        assertSameState(grid, TriangleGridFile.map(path));
+    }
+}
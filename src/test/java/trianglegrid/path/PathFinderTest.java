@@ -0,0 +1,169 @@
+package trianglegrid.path;
+
+import org.junit.jupiter.api.Test;
+import trianglegrid.coordinates.PackedCoordinate;
+import trianglegrid.grid.AbstractTriangleGrid;
+import trianglegrid.grid.EdgeInitializer;
+import trianglegrid.grid.TriangleGrid;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PathFinderTest {
+    private static final int WIDTH = 25, HEIGHT = 20;
+    private static final double TOLERANCE = 1e-9;
+
+    private final TriangleGrid grid = new TriangleGrid(WIDTH, HEIGHT, EdgeInitializer.seeded(6));
+    /** Set edges are walls, the rest cost 1 - 5 */
+    private final EdgeCost cost = EdgeCost.weighted((x, y, edgeIndex, value) ->
+            value ? Double.POSITIVE_INFINITY : 1 + Math.floorMod(x * 31 + y * 17 + edgeIndex * 7, 5), 1);
+
+    @Test
+    void computeDistancesMatchesBruteForce() {
+        PathFinder pathFinder = new PathFinder(grid, cost);
+
+        for (long start : samples(5)) {
+            pathFinder.computeDistances(PackedCoordinate.getX(start), PackedCoordinate.getY(start));
+            double[] expected = bruteForceDistances(start);
+
+            for (int node = 0; node < expected.length; node++)
+                assertEquals(expected[node], pathFinder.getDistance(node % WIDTH, node / WIDTH), TOLERANCE, "vertex " + node);
+        }
+    }
+
+    /** A* finds a path of the brute force cost, made of passable edges that add up to that cost */
+    @Test
+    void findPathMatchesBruteForce() {
+        PathFinder pathFinder = new PathFinder(grid, cost);
+        long[] path = new long[WIDTH * HEIGHT];
+        int found = 0;
+
+        for (long start : samples(5)) {
+            double[] expected = bruteForceDistances(start);
+
+            for (long goal : samples(20)) {
+                double pathCost = pathFinder.findPath(start, goal);
+                assertEquals(expected[node(goal)], pathCost, TOLERANCE);
+
+                if (pathCost == Double.POSITIVE_INFINITY) {
+                    assertEquals(0, pathFinder.getPathLength());
+                    continue;
+                }
+
+                int length = pathFinder.getPath(path);
+                assertEquals(start, path[0]);
+                assertEquals(goal, path[length - 1]);
+                double total = 0;
+
+                for (int i = 1; i < length; i++)
+                    total += stepCost(path[i - 1], PackedCoordinate.direction(path[i - 1], path[i]));
+
+                assertEquals(pathCost, total, TOLERANCE);
+                found++;
+            }
+        }
+
+        assertTrue(found > 0, "no goal was reachable");
+    }
+
+    /** Every reached vertex is the distance of its nearest source, and its flow direction steps along an edge that
+     *  accounts for the difference in distance */
+    @Test
+    void flowFieldMatchesBruteForce() {
+        PathFinder pathFinder = new PathFinder(grid, cost);
+        long[] sources = samples(3);
+        double maxCost = 12;
+        pathFinder.computeFlowField(sources, sources.length, maxCost);
+
+        double[] expected = new double[WIDTH * HEIGHT];
+        Arrays.fill(expected, Double.POSITIVE_INFINITY);
+
+        for (long source : sources) {
+            double[] distances = bruteForceDistances(source);
+
+            for (int node = 0; node < expected.length; node++)
+                expected[node] = Math.min(expected[node], distances[node]);
+        }
+
+        for (int node = 0; node < expected.length; node++) {
+            int x = node % WIDTH, y = node / WIDTH;
+            double distance = pathFinder.getDistance(x, y);
+
+            //vertices past maxCost may or may not be reached
+            if (expected[node] <= maxCost)
+                assertEquals(expected[node], distance, TOLERANCE, "vertex " + node);
+            if (distance == Double.POSITIVE_INFINITY || distance == 0)
+                continue;
+
+            long coordinate = PackedCoordinate.fromOffsetCoordinate(x, y);
+            int direction = pathFinder.getFlowDirection(x, y);
+            long next = PackedCoordinate.getNeighbour(coordinate, direction);
+            assertEquals(distance, pathFinder.getDistance(PackedCoordinate.getX(next), PackedCoordinate.getY(next)) + stepCost(coordinate, direction),
+                    TOLERANCE, "flow from vertex " + node);
+        }
+    }
+
+    /** Bellman-Ford over every edge of the grid */
+    private double[] bruteForceDistances(long start) {
+        double[] distances = new double[WIDTH * HEIGHT];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[node(start)] = 0;
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            for (int node = 0; node < distances.length; node++) {
+                if (distances[node] == Double.POSITIVE_INFINITY)
+                    continue;
+
+                long coordinate = PackedCoordinate.fromOffsetCoordinate(node % WIDTH, node / WIDTH);
+
+                for (int direction = 0; direction < 6; direction++) {
+                    double stepCost = stepCost(coordinate, direction);
+
+                    if (stepCost == Double.POSITIVE_INFINITY)
+                        continue;
+
+                    int neighbour = node(PackedCoordinate.getNeighbour(coordinate, direction));
+
+                    if (distances[node] + stepCost < distances[neighbour] - TOLERANCE) {
+                        distances[neighbour] = distances[node] + stepCost;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        return distances;
+    }
+
+    /** Cost of the edge in a direction (0 - 5) from a vertex, infinity if it does not exist or cannot be crossed */
+    private double stepCost(long coordinate, int direction) {
+        if (direction < 0 || !grid.hasEdge(coordinate, direction))
+            return Double.POSITIVE_INFINITY;
+
+        //edges in directions 3 - 5 belong to the neighbour in that direction
+        long owner = direction >= 3 ? PackedCoordinate.getNeighbour(coordinate, direction) : coordinate;
+        double edgeCost = cost.cost(grid, PackedCoordinate.getX(owner), PackedCoordinate.getY(owner), direction % 3);
+        return edgeCost < 0 ? Double.POSITIVE_INFINITY : edgeCost;
+    }
+
+    private static int node(long coordinate) {
+        return PackedCoordinate.getY(coordinate) * WIDTH + PackedCoordinate.getX(coordinate);
+    }
+
+    /** Vertices spread over the grid, the same every run */
+    private static long[] samples(int count) {
+        Random random = new Random(count);
+        long[] samples = new long[count];
+
+        for (int i = 0; i < count; i++)
+            samples[i] = PackedCoordinate.fromOffsetCoordinate(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+
+        return samples;
+    }
+}
@@ -0,0 +1,64 @@
+package trianglegrid.ui;
+
+import org.junit.jupiter.api.Test;
+import trianglegrid.DemoGridRender;
+import trianglegrid.grid.TriangleGrid;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GridExporterTest {
+    private static final int WIDTH = 300, HEIGHT = 200, TILE_SIZE = 64;
+    private static final double EDGE_LENGTH = 20;
+
+    private final TriangleGrid grid = new TriangleGrid(30, 20);
+
+    /** The streamed PNG holds the same pixels as the image rendered in one piece */
+    @Test
+    void writePngMatchesRender() throws Exception {
+        try (GridExporter exporter = exporter()) {
+            BufferedImage expected = exporter.render(EDGE_LENGTH, 0, 0, WIDTH, HEIGHT);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            exporter.writePng(EDGE_LENGTH, 0, 0, WIDTH, HEIGHT, out);
+            BufferedImage actual = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+
+            for (int y = 0; y < HEIGHT; y++)
+                for (int x = 0; x < WIDTH; x++)
+                    assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel (" + x + ", " + y + ")");
+        }
+    }
+
+    /** A failing stream fails the export, and the exporter can still export afterwards */
+    @Test
+    void writePngPropagatesStreamFailure() throws Exception {
+        try (GridExporter exporter = exporter()) {
+            OutputStream failing = new OutputStream() {
+                private int written;
+
+                @Override
+                public void write(int b) throws IOException {
+                    //fail part way through the image data
+                    if (++written > 1000)
+                        throw new IOException("Disk full");
+                }
+            };
+
+            assertThrows(IOException.class, () -> exporter.writePng(EDGE_LENGTH, 0, 0, WIDTH, HEIGHT, failing));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            exporter.writePng(EDGE_LENGTH, 0, 0, WIDTH, HEIGHT, out);
+            assertEquals(WIDTH, ImageIO.read(new ByteArrayInputStream(out.toByteArray())).getWidth());
+        }
+    }
+
+    private GridExporter exporter() {
+        return new GridExporter(() -> new DemoGridRender(grid, TILE_SIZE, TILE_SIZE, (int) EDGE_LENGTH), TILE_SIZE, 4);
+    }
+}
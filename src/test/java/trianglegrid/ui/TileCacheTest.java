@@ -0,0 +1,72 @@
+package trianglegrid.ui;
+
+import org.junit.jupiter.api.Test;
+import trianglegrid.DemoGridRender;
+import trianglegrid.grid.GridLodPyramid;
+import trianglegrid.grid.TriangleGrid;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TileCacheTest {
+    private static final int SIZE = 600;
+    /** Level of detail is drawn below this edge length, as in TriangleGridDemo */
+    private static final int LOD_EDGE_PIXELS = 8;
+
+    /** Edits invalidated through invalidateNode redraw exactly what a fresh cache draws, while elements are drawn */
+    @Test
+    void invalidateNodeRedrawsElements() {
+        assertTiledRedrawMatchesFullRedraw(20);
+    }
+
+    /** The same while level of detail cells are drawn, when one edit changes a whole cell */
+    @Test
+    void invalidateNodeRedrawsLevelOfDetailCell() {
+        assertTiledRedrawMatchesFullRedraw(7);
+    }
+
+    private static void assertTiledRedrawMatchesFullRedraw(int edgeLength) {
+        TriangleGrid grid = new TriangleGrid(200, 200);
+        GridLodPyramid lod = new GridLodPyramid(grid);
+        DemoGridRender renderer = new DemoGridRender(grid, SIZE, SIZE, edgeLength);
+        renderer.setLevelOfDetail(lod, LOD_EDGE_PIXELS);
+        renderer.setCoordinateOverlay(false);
+        renderer.setPosition(SIZE / 2, SIZE / 2);
+        TileCache tileCache = new TileCache(renderer, 64, TileCache.DEFAULT_MAX_TILES);
+        draw(tileCache);
+
+        //toggle edges of nodes on screen, as TriangleGridDemo.edgeSelected does
+        Random random = new Random(5);
+        int visibleNodes = (int) (SIZE / renderer.getGeometry().columnSpacing);
+
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(visibleNodes), y = random.nextInt(visibleNodes);
+            int edgeIndex = random.nextInt(3);
+
+            if (!grid.hasEdge(x, y, edgeIndex))
+                continue;
+
+            grid.setEdgeValue(x, y, edgeIndex, !grid.getEdgeValue(x, y, edgeIndex));
+            lod.update(x, y);
+            tileCache.invalidateNode(x, y);
+        }
+
+        BufferedImage tiled = draw(tileCache);
+        BufferedImage full = draw(new TileCache(renderer, 64, TileCache.DEFAULT_MAX_TILES));
+
+        for (int y = 0; y < SIZE; y++)
+            for (int x = 0; x < SIZE; x++)
+                assertEquals(full.getRGB(x, y), tiled.getRGB(x, y), "pixel (" + x + ", " + y + ")");
+    }
+
+    private static BufferedImage draw(TileCache tileCache) {
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        tileCache.drawGrid(g2d, null);
+        g2d.dispose();
+        return image;
+    }
+}